@@ -0,0 +1,26 @@
+package com.stacktrack.api;
+
+import com.stacktrack.catalog.CardPopularityService;
+import com.stacktrack.catalog.CardPopularityService.PopularCard;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cards")
+public class CardController {
+
+    private final CardPopularityService popularity;
+
+    public CardController(CardPopularityService popularity) {
+        this.popularity = popularity;
+    }
+
+    // GET /api/cards/popular?limit=20  (most-collected cards across all users)
+    @GetMapping("/popular")
+    public ResponseEntity<List<PopularCard>> popular(
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return ResponseEntity.ok(popularity.top(Math.min(Math.max(limit, 1), 100)));
+    }
+}
@@ -1,24 +1,47 @@
 // src/main/java/com/stacktrack/api/CollectionController.java
 package com.stacktrack.api;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseToken;
 import com.stacktrack.collections.CollectionItem;
 import com.stacktrack.collections.CollectionCardItem;
-import com.stacktrack.collections.CollectionsFsService;
+import com.stacktrack.collections.CollectionEventsService;
+import com.stacktrack.collections.CollectionTransferService;
+import com.stacktrack.collections.CollectionTransferService.Format;
+import com.stacktrack.collections.CollectionTransferService.ImportStatus;
+import com.stacktrack.collections.CollectionStore;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/collections")
 public class CollectionController {
 
-    private final CollectionsFsService svc;
+    private final CollectionStore svc;
+    private final CollectionTransferService transfer;
+    private final CollectionEventsService events;
+    private final ObjectMapper mapper;
 
-    public CollectionController(CollectionsFsService svc) {
+    public CollectionController(CollectionStore svc, CollectionTransferService transfer,
+            CollectionEventsService events, ObjectMapper mapper) {
         this.svc = svc;
+        this.transfer = transfer;
+        this.events = events;
+        this.mapper = mapper;
     }
 
     // ------ helper to extract uid from the Authorization header ------
@@ -111,12 +134,45 @@ public class CollectionController {
     }
 
     // GET /api/collections/{collectionId}/items
+    // Streams the JSON array document-by-document (gzip via server.compression),
+    // so memory stays flat however large the collection is.
     @GetMapping("/{collectionId}/items")
-    public ResponseEntity<List<CollectionCardItem>> listItems(
+    public ResponseEntity<StreamingResponseBody> listItems(
             @RequestHeader("Authorization") String auth,
             @PathVariable String collectionId) throws Exception {
         String uid = requireUid(auth);
-        return ResponseEntity.ok(svc.listItems(uid, collectionId));
+        StreamingResponseBody body = out -> writeItems(svc, mapper, uid, collectionId, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // the same JSON array GET .../items always returned, written as items arrive
+    static void writeItems(CollectionStore svc, ObjectMapper mapper, String uid, String collectionId,
+            OutputStream out) throws IOException {
+        // let the generator's buffer decide when to flush instead of once per item
+        ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator gen = mapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            gen.writeStartArray();
+            svc.streamItems(uid, collectionId, item -> writer.writeValue(gen, item));
+            gen.writeEndArray();
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to stream items", e);
+        }
+    }
+
+    // GET /api/collections/{collectionId}/events (text/event-stream)
+    // EventSource can't send headers, so the ID token may come as ?token= instead.
+    // That puts the token in the URL, and so in proxy/server access logs: it is
+    // short-lived, but keep query strings out of those logs where we control them.
+    @GetMapping(value = "/{collectionId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter itemEvents(
+            @RequestHeader(value = "Authorization", required = false) String auth,
+            @RequestParam(value = "token", required = false) String token,
+            @PathVariable String collectionId) throws Exception {
+        String uid = requireUid(auth != null ? auth : token != null ? "Bearer " + token : null);
+        return events.subscribe(uid, collectionId);
     }
 
     // DELETE /api/collections/{collectionId}/items/{itemId}
@@ -130,4 +186,86 @@ public class CollectionController {
         return ResponseEntity.noContent().build();
     }
 
+    // ====== BULK IMPORT / EXPORT ======
+
+    // GET /api/collections/{collectionId}/items/export?format=csv|ndjson
+    @GetMapping("/{collectionId}/items/export")
+    public ResponseEntity<StreamingResponseBody> exportItems(
+            @RequestHeader("Authorization") String auth,
+            @PathVariable String collectionId,
+            @RequestParam(value = "format", defaultValue = "csv") String format) throws Exception {
+        String uid = requireUid(auth);
+        Format fmt;
+        try {
+            fmt = Format.parse(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> {
+            try {
+                transfer.export(uid, collectionId, fmt, out);
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Failed to export items", e);
+            }
+        };
+        String ext = fmt == Format.CSV ? "csv" : "ndjson";
+        return ResponseEntity.ok()
+                .contentType(fmt == Format.CSV
+                        ? MediaType.parseMediaType("text/csv;charset=UTF-8")
+                        : MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, exportDisposition(collectionId, ext).toString())
+                .body(body);
+    }
+
+    // collectionId comes straight from the path: keep only filename-safe
+    // characters, and let Spring do the quoting
+    static ContentDisposition exportDisposition(String collectionId, String ext) {
+        String name = collectionId.replaceAll("[^A-Za-z0-9._-]", "_");
+        return ContentDisposition.attachment().filename(name + "." + ext).build();
+    }
+
+    // POST /api/collections/{collectionId}/items/import?format=csv|ndjson
+    // Raw file as the request body; returns 202 with a job to poll.
+    @PostMapping("/{collectionId}/items/import")
+    public ResponseEntity<ImportStatus> importItems(
+            @RequestHeader("Authorization") String auth,
+            @RequestHeader(value = "Content-Type", required = false) String contentType,
+            @PathVariable String collectionId,
+            @RequestParam(value = "format", required = false) String format,
+            InputStream upload) throws Exception {
+        String uid = requireUid(auth);
+        Format fmt;
+        try {
+            // explicit ?format= wins, otherwise NDJSON only when the content type says so
+            boolean ndjsonBody = contentType != null && contentType.startsWith("application/x-ndjson");
+            fmt = format != null ? Format.parse(format) : ndjsonBody ? Format.NDJSON : Format.CSV;
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            ImportStatus st = transfer.startImport(uid, collectionId, fmt, upload);
+            return ResponseEntity.accepted().body(st);
+        } catch (CollectionTransferService.UploadTooLargeException e) {
+            return ResponseEntity.status(413).header("X-Debug-Msg", e.getMessage()).build();
+        } catch (CollectionTransferService.TooManyImportsException e) {
+            return ResponseEntity.status(429).header("X-Debug-Msg", e.getMessage()).build();
+        }
+    }
+
+    // GET /api/collections/{collectionId}/items/import/{jobId}
+    @GetMapping("/{collectionId}/items/import/{jobId}")
+    public ResponseEntity<ImportStatus> importProgress(
+            @RequestHeader("Authorization") String auth,
+            @PathVariable String collectionId,
+            @PathVariable String jobId) throws Exception {
+        String uid = requireUid(auth);
+        ImportStatus st = transfer.importStatus(uid, jobId);
+        if (st == null || !st.collectionId().equals(collectionId))
+            return ResponseEntity.notFound().build();
+        return ResponseEntity.ok(st);
+    }
+
 }
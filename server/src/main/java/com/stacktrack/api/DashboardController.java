@@ -0,0 +1,52 @@
+package com.stacktrack.api;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseToken;
+import com.stacktrack.collections.DashboardService;
+import com.stacktrack.collections.DashboardService.Dashboard;
+import com.stacktrack.images.ImageCacheService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/dashboard")
+public class DashboardController {
+
+    private final DashboardService dashboard;
+    private final ImageCacheService images;
+
+    public DashboardController(DashboardService dashboard, ImageCacheService images) {
+        this.dashboard = dashboard;
+        this.images = images;
+    }
+
+    private String requireUid(String bearer) throws Exception {
+        if (bearer == null || !bearer.startsWith("Bearer "))
+            throw new RuntimeException("Missing bearer token");
+        String idToken = bearer.substring("Bearer ".length());
+        FirebaseToken tok = FirebaseAuth.getInstance().verifyIdToken(idToken);
+        return tok.getUid();
+    }
+
+    // GET /api/dashboard?collections=a,b&includeItems=true
+    // One token check, one getAll for the collections, item queries in parallel.
+    @GetMapping
+    public ResponseEntity<Dashboard> get(
+            @RequestHeader("Authorization") String auth,
+            @RequestParam(value = "collections", required = false) List<String> collections,
+            @RequestParam(value = "includeItems", defaultValue = "false") boolean includeItems) throws Exception {
+        String uid = requireUid(auth);
+        Dashboard d = dashboard.load(uid, collections, includeItems);
+        // the page shows these through /api/images, which only fetches cards it knows
+        List<String> cardIds = new ArrayList<>();
+        for (var c : d.collections()) {
+            if (c.items() != null)
+                c.items().forEach(it -> cardIds.add(it.getCardId()));
+        }
+        images.admit(cardIds);
+        return ResponseEntity.ok(d);
+    }
+}
@@ -0,0 +1,171 @@
+package com.stacktrack.api;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseToken;
+import com.stacktrack.collections.CollectionCardItem;
+import com.stacktrack.collections.CollectionStore;
+import com.stacktrack.images.ImageCacheService;
+import com.stacktrack.images.ImageCacheService.CachedImage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/images")
+public class ImageController {
+
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+    private final ImageCacheService images;
+    private final CollectionStore collections;
+
+    public ImageController(ImageCacheService images, CollectionStore collections) {
+        this.images = images;
+        this.collections = collections;
+    }
+
+    private String requireUid(String bearer) throws Exception {
+        if (bearer == null || !bearer.startsWith("Bearer "))
+            throw new RuntimeException("Missing bearer token");
+        String idToken = bearer.substring("Bearer ".length());
+        FirebaseToken tok = FirebaseAuth.getInstance().verifyIdToken(idToken);
+        return tok.getUid();
+    }
+
+    // ------ GET /api/images/{cardId} ------
+    // Public (plain <img> tags can't send tokens). Served zero-copy: Tomcat
+    // sendfile when the connector supports it, FileChannel.transferTo otherwise.
+    @GetMapping("/{cardId}")
+    public void image(@PathVariable String cardId, HttpServletRequest req, HttpServletResponse res)
+            throws IOException {
+        CachedImage img;
+        try {
+            img = images.get(cardId);
+        } catch (ImageCacheService.NotFoundException e) {
+            res.sendError(404);
+            return;
+        } catch (IOException e) {
+            res.setHeader("X-Debug-Msg", e.getClass().getSimpleName() + ": " + e.getMessage());
+            res.sendError(502);
+            return;
+        }
+
+        long size = img.size();
+        String etag = "\"" + img.etag() + "\"";
+        res.setHeader("ETag", etag);
+        res.setHeader("Cache-Control", CACHE_CONTROL);
+        res.setHeader("Accept-Ranges", "bytes");
+
+        if (matches(req.getHeader("If-None-Match"), etag)) {
+            res.setStatus(304);
+            return;
+        }
+
+        long start = 0;
+        long end = size - 1; // inclusive
+        String range = req.getHeader("Range");
+        String ifRange = req.getHeader("If-Range");
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] r = parseRange(range, size);
+            if (r != null && r.length == 0) {
+                res.setHeader("Content-Range", "bytes */" + size);
+                res.sendError(416);
+                return;
+            }
+            if (r != null) {
+                start = r[0];
+                end = r[1];
+                res.setStatus(206);
+                res.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + size);
+            }
+        }
+
+        long length = end - start + 1;
+        res.setContentType("image/png");
+        res.setContentLengthLong(length);
+
+        if ("GET".equals(req.getMethod()) && Boolean.TRUE.equals(req.getAttribute("org.apache.tomcat.sendfile.support"))) {
+            req.setAttribute("org.apache.tomcat.sendfile.filename", img.path().toAbsolutePath().toString());
+            req.setAttribute("org.apache.tomcat.sendfile.start", start);
+            req.setAttribute("org.apache.tomcat.sendfile.end", end + 1); // exclusive
+            return;
+        }
+
+        try (FileChannel ch = FileChannel.open(img.path(), StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(res.getOutputStream());
+            long pos = start;
+            while (pos <= end) {
+                long n = ch.transferTo(pos, end + 1 - pos, out);
+                if (n <= 0)
+                    break;
+                pos += n;
+            }
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null)
+            return false;
+        for (String tag : ifNoneMatch.split(",")) {
+            String t = tag.trim();
+            if (t.equals("*") || t.equals(etag))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Single byte range → {start, endInclusive}; empty array when unsatisfiable;
+     * null when absent, malformed or multi-range (we then send the whole file,
+     * which RFC 9110 allows).
+     */
+    static long[] parseRange(String header, long size) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0)
+            return null;
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0)
+            return null;
+        try {
+            String a = spec.substring(0, dash).trim();
+            String b = spec.substring(dash + 1).trim();
+            if (a.isEmpty()) { // suffix: last N bytes
+                if (b.isEmpty())
+                    return null;
+                long n = Long.parseLong(b);
+                if (n <= 0 || size == 0)
+                    return new long[0];
+                return new long[] { Math.max(0, size - n), size - 1 };
+            }
+            long start = Long.parseLong(a);
+            long end = b.isEmpty() ? size - 1 : Math.min(Long.parseLong(b), size - 1);
+            if (start >= size || start > end)
+                return new long[0];
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // ------ POST /api/images/prefetch?collectionId=... ------
+    // Warms the cache for every card in one of the caller's collections.
+    @PostMapping("/prefetch")
+    public ResponseEntity<Map<String, Integer>> prefetch(
+            @RequestHeader("Authorization") String auth,
+            @RequestParam String collectionId) throws Exception {
+        String uid = requireUid(auth);
+        var cardIds = collections.listItems(uid, collectionId).stream()
+                .map(CollectionCardItem::getCardId)
+                .toList();
+        int queued = images.prefetch(cardIds);
+        return ResponseEntity.accepted().body(Map.of("cards", cardIds.size(), "queued", queued));
+    }
+}
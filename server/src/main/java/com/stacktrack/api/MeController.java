@@ -2,6 +2,7 @@ package com.stacktrack.api;
 
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseToken;
+import com.stacktrack.users.UserProfileService;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
@@ -12,6 +13,12 @@ import java.util.Map;
 @RequestMapping("/api")
 public class MeController {
 
+    private final UserProfileService profiles;
+
+    public MeController(UserProfileService profiles) {
+        this.profiles = profiles;
+    }
+
     @GetMapping("/me")
     public Map<String, Object> me(@RequestHeader(value = "Authorization", required = false) String authHdr) {
         if (authHdr == null || !authHdr.startsWith("Bearer ")) {
@@ -20,6 +27,7 @@ public class MeController {
         String idToken = authHdr.substring(7);
         try {
             FirebaseToken decoded = FirebaseAuth.getInstance().verifyIdToken(idToken);
+            profiles.ensureProfile(decoded); // queued; written in the background
             return Map.of(
                     "uid", decoded.getUid(),
                     "email", decoded.getEmail(),
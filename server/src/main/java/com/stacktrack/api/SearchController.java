@@ -1,33 +1,87 @@
 package com.stacktrack.api;
 
+import com.stacktrack.catalog.FederatedSearchService;
 import com.stacktrack.catalog.SeedCatalogService;
 import com.stacktrack.catalog.SeedCatalogService.CardItem;
+import com.stacktrack.images.ImageCacheService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/search")
 public class SearchController {
 
     private final SeedCatalogService catalog;
+    private final FederatedSearchService federated;
+    private final ImageCacheService images;
 
-    public SearchController(SeedCatalogService catalog) {
+    public SearchController(SeedCatalogService catalog, FederatedSearchService federated,
+            ImageCacheService images) {
         this.catalog = catalog;
+        this.federated = federated;
+        this.images = images;
     }
 
     @GetMapping("/catalog")
-    public ResponseEntity<List<CardItem>> catalog(
+    public ResponseEntity<?> catalog(
             @RequestParam("q") String q,
-            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+            @RequestParam(value = "limit", defaultValue = "10") int limit,
+            @RequestParam(value = "setId", required = false) List<String> setId,
+            @RequestParam(value = "setName", required = false) List<String> setName,
+            @RequestParam(value = "rarity", required = false) List<String> rarity,
+            @RequestParam(value = "number", required = false) List<String> number,
+            @RequestParam(value = "facets", defaultValue = "false") boolean withFacets,
+            @RequestParam(value = "fuzzy", defaultValue = "auto") String fuzzy,
+            @RequestParam(value = "maxEdits", defaultValue = "2") int maxEdits,
+            @RequestParam(value = "federated", defaultValue = "false") boolean withUpstream) {
 
         try {
             // allow empty to just return the first N items (handy for UX)
             final String needle = (q == null) ? "" : q.trim();
             final int safeLimit = Math.min(Math.max(limit, 1), 50);
 
+            // facet params repeat for OR within a facet: ?rarity=Rare&rarity=Rare+Holo
+            Map<String, List<String>> filters = new LinkedHashMap<>();
+            if (setId != null)
+                filters.put("setId", setId);
+            if (setName != null)
+                filters.put("setName", setName);
+            if (rarity != null)
+                filters.put("rarity", rarity);
+            if (number != null)
+                filters.put("number", number);
+
+            // plain list stays the default shape so existing clients keep working
+            if (withFacets || !filters.isEmpty()) {
+                var result = catalog.searchFaceted(needle, filters, safeLimit);
+                return withFacets ? ResponseEntity.ok(result) : ResponseEntity.ok(result.items());
+            }
+
+            // local hits plus upstream cards/prices, within search.federated.budgetMs
+            if (withUpstream) {
+                var result = federated.search(needle, safeLimit, maxEdits);
+                // upstream-only cards are real catalog cards: let their thumbnails through
+                images.admit(result.items().stream()
+                        .filter(it -> !"local".equals(it.source()))
+                        .map(FederatedSearchService.FederatedItem::id)
+                        .toList());
+                return ResponseEntity.ok(result);
+            }
+
+            // fuzzy=on: typo-tolerant only; auto: fall back to it when nothing matched
+            // exactly, so "charzard" doesn't send the user round for another try
+            if ("on".equalsIgnoreCase(fuzzy) || "true".equalsIgnoreCase(fuzzy)) {
+                return ResponseEntity.ok(catalog.fuzzySearch(needle, safeLimit, maxEdits));
+            }
+
             List<CardItem> items = catalog.search(needle, safeLimit);
+            if (items.isEmpty() && !needle.isEmpty() && "auto".equalsIgnoreCase(fuzzy)) {
+                items = catalog.fuzzySearch(needle, safeLimit, maxEdits);
+            }
             return ResponseEntity.ok(items);
 
         } catch (Exception e) {
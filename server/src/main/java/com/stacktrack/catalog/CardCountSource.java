@@ -0,0 +1,12 @@
+package com.stacktrack.catalog;
+
+import java.util.Map;
+
+/**
+ * Exact per-card item counts from a store that can aggregate them itself (SQL
+ * group by). When one is present, {@link CardPopularityService} uses it
+ * instead of summing Firestore counter shards.
+ */
+public interface CardCountSource {
+    Map<String, Long> cardCounts() throws Exception;
+}
@@ -0,0 +1,268 @@
+package com.stacktrack.catalog;
+
+import com.google.api.gax.rpc.ApiStreamObserver;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.WriteBatch;
+import com.stacktrack.catalog.SeedCatalogService.CardItem;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * How many collection items reference each card, across all users.
+ * Writers bump one of {@link #SHARDS} counter docs per card
+ * (cardStats/{cardId}/popularityShards/{n}) so hot cards don't contend on a
+ * single document, then report the card via {@link #changed}. A background
+ * job re-reads only the shards of changed cards into an in-memory table, and
+ * rebuilds the top-k list and the catalog's ranking scores from it. A full
+ * shard scan happens at startup and every {@code popularity.fullScanIntervalMs}
+ * (default 6h) to pick up bumps made by other nodes. With a
+ * {@link CardCountSource} (the JPA store) the counts come from it instead and
+ * no shards are written.
+ */
+@Service
+public class CardPopularityService {
+
+    static final int SHARDS = 8;
+    static final int TOP_K = 100;
+    private static final String STATS = "cardStats";
+    private static final String SHARD_COLLECTION = "popularityShards";
+    private static final int READ_CHUNK = 50; // cards per getAll (x SHARDS docs)
+    static final int MAX_BATCH = 500; // Firestore's limit on writes per batch
+
+    public record PopularCard(String cardId, long count, CardItem card) {
+    }
+
+    private final Firestore db;
+    private final SeedCatalogService catalog;
+    private final CardCountSource counts; // null: sum Firestore shards
+    private final long fullScanIntervalMs;
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> totals = new HashMap<>(); // compactor thread only
+    private long lastFullScan; // nanoTime; 0 = never
+    private volatile List<PopularCard> top = List.of();
+    private final ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "popularity-compact");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public CardPopularityService(Firestore db, SeedCatalogService catalog,
+            @Value("${popularity.compactIntervalMs:300000}") long intervalMs,
+            @Value("${popularity.fullScanIntervalMs:21600000}") long fullScanIntervalMs,
+            Optional<CardCountSource> counts) {
+        this.db = db;
+        this.catalog = catalog;
+        this.fullScanIntervalMs = fullScanIntervalMs;
+        this.counts = counts.orElse(null);
+        compactor.scheduleWithFixedDelay(this::compactSafely, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        compactor.shutdownNow();
+    }
+
+    /** A random shard of the card's counter; pair with {@link #increment}. */
+    public DocumentReference shard(String cardId) {
+        return shardRef(cardId, ThreadLocalRandom.current().nextInt(SHARDS));
+    }
+
+    private DocumentReference shardRef(String cardId, int n) {
+        return db.collection(STATS).document(cardId).collection(SHARD_COLLECTION).document(Integer.toString(n));
+    }
+
+    /** Merge-set payload that adds {@code by} to a shard. */
+    public Map<String, Object> increment(long by) {
+        return Map.of("count", FieldValue.increment(by));
+    }
+
+    /** Call after a shard bump for {@code cardId} has committed. */
+    public void changed(String cardId) {
+        if (cardId != null)
+            dirty.add(cardId);
+    }
+
+    /**
+     * Adds per-card amounts in as few writes as possible (one shard increment
+     * per card, up to 500 per batch); used by bulk imports.
+     */
+    public void add(Map<String, Long> byCard) throws Exception {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(byCard.entrySet());
+        for (int i = 0; i < entries.size(); i += MAX_BATCH) {
+            List<Map.Entry<String, Long>> chunk = entries.subList(i, Math.min(i + MAX_BATCH, entries.size()));
+            commit(chunk);
+            chunk.forEach(e -> changed(e.getKey()));
+        }
+    }
+
+    // one WriteBatch of shard increments
+    void commit(List<Map.Entry<String, Long>> chunk) throws Exception {
+        WriteBatch batch = db.batch();
+        for (var e : chunk)
+            batch.set(shard(e.getKey()), increment(e.getValue()), SetOptions.merge());
+        batch.commit().get();
+    }
+
+    /** Most-collected cards as of the last compaction, most popular first. */
+    public List<PopularCard> top(int limit) {
+        List<PopularCard> t = top;
+        return t.subList(0, Math.min(Math.max(limit, 0), t.size()));
+    }
+
+    /** Runs a compaction on the compactor thread, after any already running. */
+    Future<?> compactNow() {
+        return compactor.submit(() -> {
+            compact();
+            return null;
+        });
+    }
+
+    private void compactSafely() {
+        try {
+            compact();
+        } catch (Exception e) {
+            System.out.println("[CardPopularityService] compaction failed: " + e.getMessage());
+        }
+    }
+
+    void compact() throws Exception {
+        if (counts != null) {
+            apply(counts.cardCounts()); // one indexed GROUP BY; cheap enough to redo
+            return;
+        }
+        long now = System.nanoTime();
+        if (lastFullScan == 0 || now - lastFullScan >= TimeUnit.MILLISECONDS.toNanos(fullScanIntervalMs)) {
+            dirty.clear(); // the scan below sees every committed bump
+            Map<String, Long> all = scanAll();
+            totals.clear();
+            totals.putAll(all);
+            lastFullScan = now;
+        } else {
+            List<String> changed = new ArrayList<>(dirty);
+            if (changed.isEmpty())
+                return;
+            changed.forEach(dirty::remove); // bumps after this point re-mark the card
+            try {
+                totals.putAll(readShards(changed));
+            } catch (Exception e) {
+                dirty.addAll(changed); // retry next tick
+                throw e;
+            }
+        }
+        apply(totals);
+    }
+
+    // current sum of each card's shards, SHARDS docs per card via batched getAll
+    Map<String, Long> readShards(List<String> cardIds) throws Exception {
+        Map<String, Long> out = new HashMap<>();
+        for (int i = 0; i < cardIds.size(); i += READ_CHUNK) {
+            List<String> chunk = cardIds.subList(i, Math.min(i + READ_CHUNK, cardIds.size()));
+            List<DocumentReference> refs = new ArrayList<>(chunk.size() * SHARDS);
+            for (String id : chunk) {
+                out.put(id, 0L);
+                for (int n = 0; n < SHARDS; n++)
+                    refs.add(shardRef(id, n));
+            }
+            readCounts(refs).forEach((shard, c) -> {
+                String card = cardOf(shard);
+                if (card != null)
+                    out.merge(card, c, Long::sum);
+            });
+        }
+        return out;
+    }
+
+    // count of every existing shard doc among refs
+    Map<DocumentReference, Long> readCounts(List<DocumentReference> refs) throws Exception {
+        Map<DocumentReference, Long> out = new HashMap<>();
+        for (DocumentSnapshot d : db.getAll(refs.toArray(DocumentReference[]::new)).get()) {
+            Long c = d.exists() ? d.getLong("count") : null;
+            if (c != null)
+                out.put(d.getReference(), c);
+        }
+        return out;
+    }
+
+    // cardStats/{cardId}/popularityShards/{n} -> cardId
+    private static String cardOf(DocumentReference shard) {
+        DocumentReference card = shard.getParent().getParent();
+        return card != null ? card.getId() : null;
+    }
+
+    Map<String, Long> scanAll() throws Exception {
+        Map<String, Long> totals = new HashMap<>();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        db.collectionGroup(SHARD_COLLECTION).select("count").stream(new ApiStreamObserver<DocumentSnapshot>() {
+            @Override
+            public void onNext(DocumentSnapshot d) {
+                Long c = d.getLong("count");
+                String card = cardOf(d.getReference());
+                if (c != null && card != null)
+                    totals.merge(card, c, Long::sum);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                done.completeExceptionally(t);
+            }
+
+            @Override
+            public void onCompleted() {
+                done.complete(null);
+            }
+        });
+        try {
+            done.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+        return totals;
+    }
+
+    void apply(Map<String, Long> totals) {
+        // min-heap of the best TOP_K seen so far; on equal counts the larger id
+        // goes first, so the cutoff agrees with the by-id order below
+        PriorityQueue<Map.Entry<String, Long>> heap = new PriorityQueue<>(
+                Comparator.comparingLong(Map.Entry<String, Long>::getValue)
+                        .thenComparing(Map.Entry::getKey, Comparator.reverseOrder()));
+        for (var e : totals.entrySet()) {
+            if (e.getValue() <= 0)
+                continue;
+            heap.offer(e);
+            if (heap.size() > TOP_K)
+                heap.poll();
+        }
+        List<Map.Entry<String, Long>> best = new ArrayList<>(heap);
+        best.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry::getKey));
+
+        Map<String, CardItem> known = catalog.findByIds(best.stream().map(Map.Entry::getKey).toList());
+        List<PopularCard> out = new ArrayList<>(best.size());
+        for (var e : best)
+            out.add(new PopularCard(e.getKey(), e.getValue(), known.get(e.getKey())));
+
+        top = List.copyOf(out);
+        catalog.applyPopularity(totals);
+    }
+}
@@ -0,0 +1,112 @@
+package com.stacktrack.catalog;
+
+import com.stacktrack.catalog.SeedCatalogService.CardItem;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Per-attribute bitmap index over the seed catalog. Bit {@code i} of a value's
+ * bitmap is set when card {@code i} (catalog order) has that value, so filters
+ * are plain AND/OR over {@link BitSet}s and facet counts are cardinalities.
+ */
+class CatalogFacetIndex {
+
+    static final Map<String, Function<CardItem, String>> FACETS = facets();
+
+    private final int size;
+    // facet -> normalized value -> cards having it
+    private final Map<String, Map<String, BitSet>> bitmaps = new HashMap<>();
+    // facet -> normalized value -> display value (first seen)
+    private final Map<String, Map<String, String>> labels = new HashMap<>();
+
+    private static Map<String, Function<CardItem, String>> facets() {
+        Map<String, Function<CardItem, String>> m = new LinkedHashMap<>();
+        m.put("setId", c -> c.setId);
+        m.put("setName", c -> c.setName);
+        m.put("rarity", c -> c.rarity);
+        m.put("number", c -> c.number);
+        return m;
+    }
+
+    CatalogFacetIndex(List<CardItem> cards) {
+        this.size = cards.size();
+        for (var facet : FACETS.entrySet()) {
+            Map<String, BitSet> byValue = new HashMap<>();
+            Map<String, String> display = new HashMap<>();
+            for (int i = 0; i < cards.size(); i++) {
+                String raw = facet.getValue().apply(cards.get(i));
+                if (raw == null || raw.isBlank())
+                    continue;
+                String key = normalize(raw);
+                byValue.computeIfAbsent(key, k -> new BitSet(size)).set(i);
+                display.putIfAbsent(key, raw.trim());
+            }
+            bitmaps.put(facet.getKey(), byValue);
+            labels.put(facet.getKey(), display);
+        }
+    }
+
+    static String normalize(String s) {
+        return s.trim().toLowerCase(Locale.ROOT);
+    }
+
+    static boolean isFacet(String name) {
+        return FACETS.containsKey(name);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Bitmap with every card set. */
+    BitSet all() {
+        BitSet b = new BitSet(size);
+        b.set(0, size);
+        return b;
+    }
+
+    /**
+     * Values of one facet are OR-ed together; the result is AND-ed into
+     * {@code acc} in place. Unknown values match nothing.
+     */
+    void restrict(BitSet acc, String facet, Collection<String> values) {
+        Map<String, BitSet> byValue = bitmaps.get(facet);
+        if (byValue == null || values == null || values.isEmpty())
+            return;
+        BitSet union = new BitSet(size);
+        for (String v : values) {
+            if (v == null || v.isBlank())
+                continue;
+            BitSet b = byValue.get(normalize(v));
+            if (b != null)
+                union.or(b);
+        }
+        acc.and(union);
+    }
+
+    /** Count of matching cards per value, for every facet. */
+    Map<String, Map<String, Integer>> counts(BitSet matches) {
+        Map<String, Map<String, Integer>> out = new LinkedHashMap<>();
+        for (String facet : FACETS.keySet()) {
+            Map<String, Integer> perValue = new TreeMap<>();
+            Map<String, String> display = labels.get(facet);
+            for (var e : bitmaps.get(facet).entrySet()) {
+                BitSet tmp = (BitSet) e.getValue().clone();
+                tmp.and(matches);
+                int n = tmp.cardinality();
+                if (n > 0)
+                    perValue.put(display.get(e.getKey()), n);
+            }
+            out.put(facet, perValue);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,159 @@
+package com.stacktrack.catalog;
+
+import com.stacktrack.catalog.SeedCatalogService.CardItem;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * SymSpell-style deletion index over normalized card names. Every distinct
+ * term (each word of a name, plus the whole name without spaces) is indexed
+ * under all strings reachable from its prefix by up to {@link #MAX_EDITS}
+ * deletions. A query generates the same deletions, so candidate lookup is a
+ * handful of hash probes and only the candidates pay for a real edit-distance
+ * check.
+ */
+class CatalogFuzzyIndex {
+
+    static final int MAX_EDITS = 2;
+    // only the first N chars are expanded into deletions; keeps the index small
+    // for long names while still catching typos anywhere (verified afterwards)
+    static final int PREFIX_LENGTH = 7;
+
+    private final List<String> terms = new ArrayList<>();
+    private final List<int[]> termCards = new ArrayList<>();
+    private final Map<String, int[]> deletes;
+
+    record Match(int card, int distance) {
+    }
+
+    CatalogFuzzyIndex(List<CardItem> cards) {
+        Map<String, List<Integer>> cardsByTerm = new LinkedHashMap<>();
+        for (int i = 0; i < cards.size(); i++) {
+            String name = normalize(cards.get(i).name);
+            if (name.isEmpty())
+                continue;
+            Set<String> own = new HashSet<>();
+            for (String word : name.split(" "))
+                own.add(word);
+            own.add(name.replace(" ", ""));
+            for (String t : own)
+                cardsByTerm.computeIfAbsent(t, k -> new ArrayList<>()).add(i);
+        }
+
+        Map<String, List<Integer>> byDelete = new HashMap<>();
+        for (var e : cardsByTerm.entrySet()) {
+            int termId = terms.size();
+            terms.add(e.getKey());
+            termCards.add(e.getValue().stream().mapToInt(Integer::intValue).toArray());
+            for (String d : deletions(prefix(e.getKey())))
+                byDelete.computeIfAbsent(d, k -> new ArrayList<>(2)).add(termId);
+        }
+
+        this.deletes = new HashMap<>(byDelete.size() * 4 / 3 + 1);
+        for (var e : byDelete.entrySet())
+            deletes.put(e.getKey(), e.getValue().stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Cards whose name has a term within {@code maxEdits} of the query, at the
+     * best distance seen per card, in no particular order.
+     */
+    List<Match> lookup(String query, int maxEdits) {
+        String q = normalize(query).replace(" ", "");
+        int max = Math.min(Math.max(maxEdits, 0), MAX_EDITS);
+        if (q.isEmpty())
+            return List.of();
+
+        Map<Integer, Integer> bestTerm = new HashMap<>();
+        for (String d : deletions(prefix(q), max)) {
+            int[] ids = deletes.get(d);
+            if (ids == null)
+                continue;
+            for (int id : ids) {
+                if (bestTerm.containsKey(id))
+                    continue;
+                String t = terms.get(id);
+                int dist = Math.abs(t.length() - q.length()) > max ? max + 1 : distance(q, t, max);
+                bestTerm.put(id, dist);
+            }
+        }
+
+        Map<Integer, Integer> bestCard = new HashMap<>();
+        for (var e : bestTerm.entrySet()) {
+            if (e.getValue() > max)
+                continue;
+            for (int card : termCards.get(e.getKey()))
+                bestCard.merge(card, e.getValue(), Math::min);
+        }
+        List<Match> out = new ArrayList<>(bestCard.size());
+        bestCard.forEach((card, dist) -> out.add(new Match(card, dist)));
+        return out;
+    }
+
+    static String normalize(String s) {
+        if (s == null)
+            return "";
+        return Normalizer.normalize(s, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[^a-z0-9]+", " ")
+                .trim();
+    }
+
+    private static String prefix(String s) {
+        return s.length() > PREFIX_LENGTH ? s.substring(0, PREFIX_LENGTH) : s;
+    }
+
+    private static Set<String> deletions(String s) {
+        return deletions(s, MAX_EDITS);
+    }
+
+    private static Set<String> deletions(String s, int edits) {
+        Set<String> out = new HashSet<>();
+        out.add(s);
+        List<String> frontier = List.of(s);
+        for (int e = 0; e < edits; e++) {
+            List<String> next = new ArrayList<>();
+            for (String w : frontier) {
+                for (int i = 0; i < w.length(); i++) {
+                    String d = w.substring(0, i) + w.substring(i + 1);
+                    if (out.add(d))
+                        next.add(d);
+                }
+            }
+            frontier = next;
+        }
+        return out;
+    }
+
+    /** Levenshtein distance, or {@code max + 1} as soon as it must exceed max. */
+    static int distance(String a, String b, int max) {
+        int[] prev = new int[b.length() + 1];
+        int[] cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++)
+            prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                rowMin = Math.min(rowMin, cur[j]);
+            }
+            if (rowMin > max)
+                return max + 1;
+            int[] tmp = prev;
+            prev = cur;
+            cur = tmp;
+        }
+        return Math.min(prev[b.length()], max + 1);
+    }
+}
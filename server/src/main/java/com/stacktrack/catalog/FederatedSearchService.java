@@ -0,0 +1,200 @@
+package com.stacktrack.catalog;
+
+import com.stacktrack.catalog.SeedCatalogService.CardItem;
+import com.stacktrack.pokemon.PokemonTcgService;
+import com.stacktrack.pokemon.PokemonTcgService.SearchItem;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Catalog search that asks the local seed index and the PokémonTCG.io
+ * upstream at the same time. The local answer is always used; the upstream
+ * gets until the latency budget runs out to contribute prices and cards the
+ * seed doesn't have. Whatever it hasn't delivered by then is left out and the
+ * result is flagged {@code partial}. Late upstream answers still land in a
+ * small price cache, so the next search for the same cards is enriched.
+ */
+@Service
+public class FederatedSearchService {
+
+    static final int MAX_IN_FLIGHT = 16;
+    static final int PRICE_CACHE_SIZE = 5000;
+    private static final Duration PRICE_TTL = Duration.ofMinutes(10);
+
+    public record FederatedItem(
+            String id,
+            String name,
+            String setName,
+            String setId,
+            String imageSmall,
+            String rarity,
+            String number,
+            Double priceUSD,
+            String priceUpdatedAt,
+            String source) { // local, upstream or both
+    }
+
+    public record FederatedResult(
+            List<FederatedItem> items,
+            boolean partial, // upstream didn't contribute in time (or at all)
+            String upstream, // ok, timeout, error, busy, disabled, skipped
+            long tookMs) {
+    }
+
+    private record CachedPrice(SearchItem item, long at) {
+    }
+
+    private final SeedCatalogService catalog;
+    private final PokemonTcgService upstream;
+    private final long budgetMs;
+    private final long upstreamTimeoutMs;
+    private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+    private final Map<String, CachedPrice> prices = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedPrice> eldest) {
+            return size() > PRICE_CACHE_SIZE;
+        }
+    };
+
+    public FederatedSearchService(SeedCatalogService catalog, PokemonTcgService upstream,
+            @Value("${search.federated.budgetMs:250}") long budgetMs,
+            @Value("${search.federated.upstreamTimeoutMs:5000}") long upstreamTimeoutMs) {
+        this.catalog = catalog;
+        this.upstream = upstream;
+        this.budgetMs = budgetMs;
+        this.upstreamTimeoutMs = upstreamTimeoutMs;
+    }
+
+    public FederatedResult search(String q, int limit, int maxEdits) {
+        long start = System.nanoTime();
+        String needle = q == null ? "" : q.trim();
+
+        // scatter: upstream first so it runs while we search locally
+        String upstreamQuery = upstreamQuery(needle);
+        CompletableFuture<List<SearchItem>> remote = null;
+        String status;
+        if (upstreamQuery == null) {
+            status = "skipped";
+        } else if (!upstream.isEnabled()) {
+            status = "disabled";
+        } else if (!inFlight.tryAcquire()) {
+            status = "busy"; // upstream already backed up; don't pile on
+        } else {
+            status = null;
+            remote = upstream.searchAsync(upstreamQuery, limit, Duration.ofMillis(upstreamTimeoutMs));
+            remote.whenComplete((items, err) -> {
+                inFlight.release();
+                if (items != null)
+                    remember(items);
+            });
+        }
+
+        List<CardItem> local = catalog.search(needle, limit);
+        if (local.isEmpty() && !needle.isEmpty())
+            local = catalog.fuzzySearch(needle, limit, maxEdits);
+
+        // gather: whatever the upstream has by the deadline
+        List<SearchItem> remoteItems = List.of();
+        if (remote != null) {
+            long left = budgetMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            try {
+                remoteItems = remote.get(Math.max(0, left), TimeUnit.MILLISECONDS);
+                status = "ok";
+            } catch (TimeoutException e) {
+                status = "timeout"; // left running: its answer still warms the price cache
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                status = "timeout";
+            } catch (ExecutionException e) {
+                status = "error";
+                System.out.println("[FederatedSearchService] upstream failed: " + e.getCause());
+            }
+        }
+
+        List<FederatedItem> items = merge(local, remoteItems, limit);
+        long took = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new FederatedResult(items, !"ok".equals(status) && !"skipped".equals(status), status, took);
+    }
+
+    // local order first (enriched), then upstream-only cards, deduped by id
+    private List<FederatedItem> merge(List<CardItem> local, List<SearchItem> remote, int limit) {
+        Map<String, SearchItem> byId = new LinkedHashMap<>();
+        for (SearchItem s : remote) {
+            if (s.id() != null)
+                byId.putIfAbsent(s.id(), s);
+        }
+
+        Map<String, FederatedItem> out = new LinkedHashMap<>();
+        for (CardItem c : local) {
+            if (out.size() >= limit)
+                break;
+            SearchItem s = byId.remove(c.id);
+            String source = "both";
+            if (s == null) {
+                s = cachedPrice(c.id);
+                source = "local";
+            }
+            out.putIfAbsent(c.id, new FederatedItem(c.id, c.name, c.setName, c.setId, c.imageSmall, c.rarity,
+                    c.number, s != null ? s.priceUSD() : null, s != null ? s.priceUpdatedAt() : null, source));
+        }
+        for (SearchItem s : byId.values()) {
+            if (out.size() >= limit)
+                break;
+            out.putIfAbsent(s.id(), new FederatedItem(s.id(), s.name(), s.setName(), null, s.imageSmall(), null,
+                    null, s.priceUSD(), s.priceUpdatedAt(), "upstream"));
+        }
+        return new ArrayList<>(out.values());
+    }
+
+    private void remember(List<SearchItem> items) {
+        long now = System.currentTimeMillis();
+        synchronized (prices) {
+            for (SearchItem s : items) {
+                if (s.id() != null && s.priceUSD() != null)
+                    prices.put(s.id(), new CachedPrice(s, now));
+            }
+        }
+    }
+
+    private SearchItem cachedPrice(String cardId) {
+        synchronized (prices) {
+            CachedPrice p = prices.get(cardId);
+            if (p == null)
+                return null;
+            if (System.currentTimeMillis() - p.at() > PRICE_TTL.toMillis()) {
+                prices.remove(cardId);
+                return null;
+            }
+            return p.item();
+        }
+    }
+
+    /**
+     * PokémonTCG.io query for a free-text needle: every word as a name prefix
+     * ({@code name:char* name:x*}); null when there is nothing to ask.
+     */
+    static String upstreamQuery(String needle) {
+        StringBuilder q = new StringBuilder();
+        for (String word : needle.toLowerCase(Locale.ROOT).split("\\s+")) {
+            String w = word.replaceAll("[^\\p{L}\\p{N}-]", "");
+            if (w.isEmpty())
+                continue;
+            if (q.length() > 0)
+                q.append(' ');
+            q.append("name:").append(w).append('*');
+        }
+        return q.length() == 0 ? null : q.toString();
+    }
+}
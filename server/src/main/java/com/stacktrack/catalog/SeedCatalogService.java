@@ -7,18 +7,39 @@ import org.springframework.stereotype.Service;
 
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.stream.IntStream;
 
 @Service
 public class SeedCatalogService {
 
     private final ObjectMapper mapper = new ObjectMapper();
     private final List<CardItem> all;
+    private final CatalogFacetIndex facets;
+    private final CatalogFuzzyIndex fuzzy;
+    private final Map<String, CardItem> byId = new HashMap<>();
+    // collection counts aligned with `all`; null until anything has been collected
+    private volatile long[] popularity;
 
     public SeedCatalogService() {
-        this.all = load();
+        this(null);
+    }
+
+    // tests/benchmarks hand in a synthetic catalog instead of seed-cards.json
+    SeedCatalogService(List<CardItem> cards) {
+        this.all = cards != null ? cards : load();
+        this.facets = new CatalogFacetIndex(all);
+        this.fuzzy = new CatalogFuzzyIndex(all);
+        for (CardItem c : all) {
+            if (c.id != null)
+                byId.putIfAbsent(c.id, c);
+        }
     }
 
     private List<CardItem> load() {
@@ -40,16 +61,121 @@ public class SeedCatalogService {
         final String needle = (q == null) ? "" : q.toLowerCase(Locale.ROOT);
         final int max = Math.min(Math.max(limit, 1), 50);
 
-        return all.stream()
-                .filter(c -> needle.isEmpty()
-                        || (c.name != null && c.name.toLowerCase(Locale.ROOT).contains(needle))
-                        || (c.setName != null && c.setName.toLowerCase(Locale.ROOT).contains(needle))
-                        || (c.rarity != null && c.rarity.toLowerCase(Locale.ROOT).contains(needle))
-                        || (c.number != null && c.number.toLowerCase(Locale.ROOT).contains(needle)))
+        final long[] pop = popularity;
+        if (pop == null) {
+            return all.stream()
+                    .filter(c -> textMatches(c, needle))
+                    .limit(max)
+                    .toList();
+        }
+        // most-collected first; needs every match, not just the first `max`
+        return IntStream.range(0, all.size())
+                .filter(i -> textMatches(all.get(i), needle))
+                .boxed()
+                .sorted(byPopularity(pop))
+                .limit(max)
+                .map(all::get)
+                .toList();
+    }
+
+    /**
+     * Replaces the popularity signal (cardId -> number of collection items).
+     * Called by {@link CardPopularityService} after each compaction.
+     */
+    void applyPopularity(Map<String, Long> counts) {
+        long[] pop = new long[all.size()];
+        boolean any = false;
+        for (int i = 0; i < pop.length; i++) {
+            String id = all.get(i).id;
+            pop[i] = id != null ? Math.max(0, counts.getOrDefault(id, 0L)) : 0;
+            any |= pop[i] > 0;
+        }
+        this.popularity = any ? pop : null;
+    }
+
+    // descending popularity, catalog order on ties
+    private static Comparator<Integer> byPopularity(long[] pop) {
+        return Comparator.<Integer>comparingLong(i -> -pop[i]).thenComparingInt(i -> i);
+    }
+
+    /** Resolves a batch of card ids in one call; unknown ids are simply absent. */
+    public Map<String, CardItem> findByIds(java.util.Collection<String> ids) {
+        Map<String, CardItem> out = new HashMap<>();
+        for (String id : ids) {
+            CardItem c = id != null ? byId.get(id) : null;
+            if (c != null)
+                out.put(id, c);
+        }
+        return out;
+    }
+
+    /**
+     * Typo-tolerant name search: cards whose name (or a word of it) is within
+     * {@code maxEdits} (1-2) of the query, closest first, then most collected,
+     * then catalog order.
+     */
+    public List<CardItem> fuzzySearch(String q, int limit, int maxEdits) {
+        if (all == null || all.isEmpty() || q == null || q.isBlank())
+            return Collections.emptyList();
+        final int max = Math.min(Math.max(limit, 1), 50);
+
+        final long[] pop = popularity;
+        return fuzzy.lookup(q, maxEdits).stream()
+                .sorted(Comparator.comparingInt(CatalogFuzzyIndex.Match::distance)
+                        .thenComparingLong(m -> pop != null ? -pop[m.card()] : 0)
+                        .thenComparingInt(CatalogFuzzyIndex.Match::card))
                 .limit(max)
+                .map(m -> all.get(m.card()))
                 .toList();
     }
 
+    /**
+     * Text search narrowed by structured facet filters, e.g.
+     * {@code {setId: [base1], rarity: [Rare Holo]}}. Values within a facet are
+     * OR-ed, facets are AND-ed, and the text match is intersected last.
+     * Facet counts describe the whole match set, not just the returned page.
+     */
+    public FacetedResult searchFaceted(String q, Map<String, List<String>> filters, int limit) {
+        if (all == null || all.isEmpty())
+            return new FacetedResult(Collections.emptyList(), 0, Map.of());
+        final String needle = (q == null) ? "" : q.toLowerCase(Locale.ROOT);
+        final int max = Math.min(Math.max(limit, 1), 50);
+
+        BitSet matches = facets.all();
+        if (filters != null) {
+            for (var f : filters.entrySet()) {
+                if (CatalogFacetIndex.isFacet(f.getKey()))
+                    facets.restrict(matches, f.getKey(), f.getValue());
+            }
+        }
+        if (!needle.isEmpty()) {
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                if (!textMatches(all.get(i), needle))
+                    matches.clear(i);
+            }
+        }
+
+        final long[] pop = popularity;
+        List<CardItem> items = pop == null
+                ? matches.stream().limit(max).mapToObj(all::get).toList()
+                : matches.stream().boxed().sorted(byPopularity(pop)).limit(max).map(all::get).toList();
+        return new FacetedResult(items, matches.cardinality(), facets.counts(matches));
+    }
+
+    private static boolean textMatches(CardItem c, String needle) {
+        return needle.isEmpty()
+                || (c.name != null && c.name.toLowerCase(Locale.ROOT).contains(needle))
+                || (c.setName != null && c.setName.toLowerCase(Locale.ROOT).contains(needle))
+                || (c.rarity != null && c.rarity.toLowerCase(Locale.ROOT).contains(needle))
+                || (c.number != null && c.number.toLowerCase(Locale.ROOT).contains(needle));
+    }
+
+    public record FacetedResult(
+            List<CardItem> items,
+            int total,
+            Map<String, Map<String, Integer>> facets) {
+    }
+
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class CardItem {
         public String id;
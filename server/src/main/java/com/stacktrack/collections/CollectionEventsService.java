@@ -0,0 +1,222 @@
+package com.stacktrack.collections;
+
+import com.stacktrack.collections.CollectionStore.ItemChange;
+import com.stacktrack.collections.CollectionStore.Registration;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-Sent Events fan-out of item changes. Each active collection has one
+ * shared store listener (a hub) no matter how many tabs/devices
+ * watch it; the listener only enqueues, and every connection drains its own
+ * bounded buffer on a sender thread. A connection that falls
+ * {@link #BUFFER_SIZE} events behind loses its backlog and gets a single
+ * {@code resync} event telling the client to reload the list.
+ *
+ * Events: {@code ready} (the store listener is live; load the list now),
+ * {@code added}, {@code modified}, {@code removed} (data: {type, item}) and
+ * {@code resync}. A connection gets no changes before its {@code ready}: the
+ * list it loads then already has them.
+ */
+@Service
+public class CollectionEventsService {
+
+    static final int BUFFER_SIZE = 256;
+    private static final long EMITTER_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(30);
+    private static final long HEARTBEAT_SECONDS = 25;
+
+    private final CollectionStore items;
+    private final Map<String, Hub> hubs = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "sse-send");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "sse-heartbeat");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public CollectionEventsService(CollectionStore items) {
+        this.items = items;
+        // keeps idle connections alive through proxies (Render closes silent ones)
+        heartbeat.scheduleAtFixedRate(() -> hubs.values().forEach(h -> h.subscribers
+                .forEach(s -> s.offer(SseEmitter.event().comment("ping")))),
+                HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        heartbeat.shutdownNow();
+        hubs.values().forEach(h -> {
+            h.close();
+            h.subscribers.forEach(s -> s.emitter.complete());
+        });
+        hubs.clear();
+        senders.shutdownNow();
+    }
+
+    // overridden by tests to capture what is sent
+    SseEmitter newEmitter() {
+        return new SseEmitter(EMITTER_TIMEOUT_MS);
+    }
+
+    public SseEmitter subscribe(String uid, String collectionId) {
+        String key = uid + "/" + collectionId;
+        SseEmitter emitter = newEmitter();
+        Subscriber sub = new Subscriber(emitter, collectionId);
+
+        Hub fresh = new Hub();
+        Hub hub = hubs.compute(key, (k, h) -> {
+            if (h == null || h.closed)
+                h = fresh;
+            h.subscribers.add(sub);
+            return h;
+        });
+        // start listening outside compute: the store may report errors right away,
+        // and closeHub touches the map again
+        if (hub == fresh) {
+            hub.attach(items.listenItems(uid, collectionId,
+                    hub::markReady,
+                    hub::broadcast,
+                    err -> closeHub(key, hub)));
+        }
+        if (hub.ready)
+            sub.sendReady(); // joined a live hub; otherwise markReady tells us
+
+        Runnable leave = () -> leave(key, sub);
+        emitter.onCompletion(leave);
+        emitter.onTimeout(leave);
+        emitter.onError(e -> leave.run());
+        return emitter;
+    }
+
+    private void leave(String key, Subscriber sub) {
+        hubs.computeIfPresent(key, (k, hub) -> {
+            hub.subscribers.remove(sub);
+            if (!hub.subscribers.isEmpty())
+                return hub;
+            hub.close(); // last watcher gone: stop listening
+            return null;
+        });
+    }
+
+    // listener died (e.g. collection deleted); clients will reconnect and resubscribe
+    private void closeHub(String key, Hub hub) {
+        hub.close(); // first, so no new subscriber joins it
+        hubs.remove(key, hub);
+        hub.subscribers.forEach(s -> s.emitter.complete());
+    }
+
+    private final class Hub {
+        private Registration registration; // null until the store returns it
+        volatile boolean closed;
+        volatile boolean ready; // store listener is live
+        final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+
+        synchronized void attach(Registration r) {
+            if (closed)
+                r.remove(); // closed (error or last leave) before listenItems returned
+            else
+                registration = r;
+        }
+
+        synchronized void close() {
+            closed = true;
+            if (registration != null) {
+                registration.remove();
+                registration = null;
+            }
+        }
+
+        void markReady() {
+            ready = true; // before the loop, so a subscriber joining now sees it
+            subscribers.forEach(Subscriber::sendReady);
+        }
+
+        void broadcast(List<ItemChange> changes) {
+            for (ItemChange ch : changes) {
+                for (Subscriber s : subscribers)
+                    s.offerChange(SseEmitter.event().name(ch.type()).data(ch));
+            }
+        }
+    }
+
+    private final class Subscriber {
+        final SseEmitter emitter;
+        final String collectionId;
+        final BlockingQueue<SseEmitter.SseEventBuilder> buffer = new ArrayBlockingQueue<>(BUFFER_SIZE);
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile boolean closed;
+        private boolean readySent; // guarded by this
+
+        Subscriber(SseEmitter emitter, String collectionId) {
+            this.emitter = emitter;
+            this.collectionId = collectionId;
+        }
+
+        // exactly once, whether markReady or subscribe gets here first
+        synchronized void sendReady() {
+            if (readySent)
+                return;
+            readySent = true;
+            offer(SseEmitter.event().name("ready").data(Map.of("collectionId", collectionId)));
+        }
+
+        // changes before ready are in the list the client loads on ready
+        synchronized void offerChange(SseEmitter.SseEventBuilder ev) {
+            if (readySent)
+                offer(ev);
+        }
+
+        void offer(SseEmitter.SseEventBuilder ev) {
+            if (closed)
+                return;
+            if (!buffer.offer(ev)) {
+                // too slow to keep up: drop the backlog, tell the client to reload
+                synchronized (buffer) {
+                    buffer.clear();
+                    buffer.offer(SseEmitter.event().name("resync").data(Map.of("reason", "overflow")));
+                }
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true))
+                senders.execute(this::drain);
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder ev;
+                while (!closed && (ev = buffer.poll()) != null)
+                    emitter.send(ev);
+            } catch (IOException | IllegalStateException e) {
+                closed = true;
+                buffer.clear();
+                emitter.completeWithError(e);
+            } finally {
+                draining.set(false);
+            }
+            if (!closed && !buffer.isEmpty())
+                scheduleDrain(); // something arrived after the last poll
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.stacktrack.collections;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Storage for a user's collections and their items. Firestore
+ * ({@link CollectionsFsService}) is the default; {@code storage.backend=jpa}
+ * switches to the relational backend ({@link JpaCollectionStore}).
+ * Ids are opaque strings to callers in both cases.
+ */
+public interface CollectionStore {
+
+    List<CollectionItem> list(String uid) throws Exception;
+
+    /** Several collections in one round trip, in the order asked; unknown ids are left out. */
+    List<CollectionItem> getCollections(String uid, List<String> ids) throws Exception;
+
+    CollectionItem create(String uid, String name) throws Exception;
+
+    void delete(String uid, String id) throws Exception;
+
+    CollectionCardItem addItem(String uid, String collectionId, CollectionCardItem item) throws Exception;
+
+    /** Batched writer for bulk adds (import); close() waits for everything queued. */
+    ItemBatch openBatch(String uid, String collectionId);
+
+    List<CollectionCardItem> listItems(String uid, String collectionId) throws Exception;
+
+    /** Non-blocking listItems, so callers can fan out several queries at once. */
+    CompletableFuture<List<CollectionCardItem>> listItemsAsync(String uid, String collectionId);
+
+    /**
+     * Same items and order as {@link #listItems}, pushed to {@code sink} as they
+     * are read so the whole collection is never held at once. Returns once all
+     * items were delivered; a sink failure stops delivery and is rethrown.
+     */
+    void streamItems(String uid, String collectionId, ItemSink sink) throws Exception;
+
+    void deleteItem(String uid, String collectionId, String itemId) throws Exception;
+
+    /**
+     * Live item changes after subscription (no initial state). {@code onReady}
+     * runs once, when the listener is live: a list read after it misses no
+     * change. Callbacks must not block, and are never made before this method
+     * has returned.
+     */
+    Registration listenItems(String uid, String collectionId, Runnable onReady,
+            Consumer<List<ItemChange>> onChanges, Consumer<Throwable> onError);
+
+    // Receives items one at a time from streamItems; may block to apply backpressure.
+    @FunctionalInterface
+    interface ItemSink {
+        void accept(CollectionCardItem item) throws IOException;
+    }
+
+    record ItemChange(String type, CollectionCardItem item) { // type: added, modified, removed
+    }
+
+    @FunctionalInterface
+    interface Registration {
+        void remove();
+    }
+
+    interface ItemBatch extends AutoCloseable {
+        /** Queues one item; the future completes once it is durably written. */
+        CompletableFuture<Void> add(CollectionCardItem item);
+
+        @Override
+        void close() throws Exception;
+    }
+}
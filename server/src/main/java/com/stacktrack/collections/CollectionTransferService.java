@@ -0,0 +1,566 @@
+package com.stacktrack.collections;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.stacktrack.catalog.SeedCatalogService;
+import com.stacktrack.catalog.SeedCatalogService.CardItem;
+import com.stacktrack.collections.CollectionStore.ItemBatch;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk CSV / NDJSON export and import of collection items.
+ * Export streams straight from the store to the response. Import spools the
+ * upload to a temp file, then parses it row by row on a background thread,
+ * resolving card ids against the seed catalog in batches and writing through the
+ * store's {@link ItemBatch} with a bounded number of in-flight writes.
+ */
+@Service
+public class CollectionTransferService {
+
+    public enum Format {
+        CSV, NDJSON;
+
+        public static Format parse(String s) {
+            if (s == null || s.isBlank())
+                return CSV;
+            return switch (s.trim().toLowerCase(Locale.ROOT)) {
+                case "csv", "text/csv" -> CSV;
+                case "ndjson", "jsonl", "application/x-ndjson" -> NDJSON;
+                default -> throw new IllegalArgumentException("Unsupported format: " + s);
+            };
+        }
+    }
+
+    static final List<String> CSV_COLUMNS = List.of(
+            "cardId", "name", "setName", "imageSmall", "priceUSD", "priceUpdatedAt", "addedAt");
+
+    private static final int RESOLVE_BATCH = 500;
+    private static final int MAX_IN_FLIGHT = 1000;
+    private static final int MAX_REPORTED_ERRORS = 200;
+    private static final Duration KEEP_FINISHED = Duration.ofHours(1);
+
+    private static final int MAX_QUEUED = 50;
+
+    /** Upload bigger than {@code imports.maxBytes}. */
+    public static final class UploadTooLargeException extends IOException {
+        public UploadTooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    /** The user (or the server) already has as many imports queued/running as allowed. */
+    public static final class TooManyImportsException extends IOException {
+        public TooManyImportsException(String message) {
+            super(message);
+        }
+    }
+
+    private final CollectionStore items;
+    private final SeedCatalogService catalog;
+    private final ObjectMapper mapper;
+    private final long maxUploadBytes;
+    private final int maxJobsPerUser;
+    private final ExecutorService workers = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(MAX_QUEUED), r -> {
+                Thread t = new Thread(r, "item-import");
+                t.setDaemon(true);
+                return t;
+            });
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, Integer> activeByUser = new ConcurrentHashMap<>(); // queued + running
+
+    public CollectionTransferService(CollectionStore items, SeedCatalogService catalog, ObjectMapper mapper,
+            @Value("${imports.maxBytes:52428800}") long maxUploadBytes,
+            @Value("${imports.maxJobsPerUser:2}") int maxJobsPerUser) {
+        this.items = items;
+        this.catalog = catalog;
+        this.mapper = mapper;
+        this.maxUploadBytes = maxUploadBytes;
+        this.maxJobsPerUser = maxJobsPerUser;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    // ====== EXPORT ======
+
+    public void export(String uid, String collectionId, Format format, OutputStream out) throws Exception {
+        if (format == Format.NDJSON) {
+            ObjectWriter writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (JsonGenerator gen = mapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                items.streamItems(uid, collectionId, item -> {
+                    writer.writeValue(gen, item);
+                    gen.writeRaw('\n');
+                });
+            }
+            return;
+        }
+
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeCsvRow(w, CSV_COLUMNS);
+        items.streamItems(uid, collectionId, item -> writeCsvRow(w, List.of(
+                textCell(item.getCardId()),
+                textCell(item.getName()),
+                textCell(item.getSetName()),
+                textCell(item.getImageSmall()),
+                item.getPriceUSD() != null ? item.getPriceUSD().toString() : "",
+                textCell(item.getPriceUpdatedAt()),
+                item.getAddedAt() != null ? item.getAddedAt().toString() : "")));
+        w.flush();
+    }
+
+    // a cell starting with one of these runs as a formula in Excel/Sheets
+    private static final String FORMULA_START = "=+-@\t\r";
+
+    // user text for the CSV: a leading ' (OWASP's advice) makes a spreadsheet
+    // show "=HYPERLINK(...)" as text instead of evaluating it
+    static String textCell(String s) {
+        if (s == null)
+            return "";
+        return !s.isEmpty() && FORMULA_START.indexOf(s.charAt(0)) >= 0 ? "'" + s : s;
+    }
+
+    // undoes textCell on import, so an export reads back unchanged
+    static String fromTextCell(String s) {
+        if (s != null && s.length() > 1 && s.charAt(0) == '\'' && FORMULA_START.indexOf(s.charAt(1)) >= 0)
+            return s.substring(1);
+        return s;
+    }
+
+    static void writeCsvRow(Writer w, List<String> fields) throws IOException {
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0)
+                w.write(',');
+            String f = fields.get(i);
+            if (f.indexOf(',') >= 0 || f.indexOf('"') >= 0 || f.indexOf('\n') >= 0 || f.indexOf('\r') >= 0) {
+                w.write('"');
+                w.write(f.replace("\"", "\"\""));
+                w.write('"');
+            } else {
+                w.write(f);
+            }
+        }
+        w.write("\r\n");
+    }
+
+    // ====== IMPORT ======
+
+    public record RowError(long row, String message) {
+    }
+
+    public record ImportStatus(
+            String jobId,
+            String collectionId,
+            String state, // QUEUED, RUNNING, DONE, FAILED
+            long rowsRead,
+            long written,
+            long failed,
+            List<RowError> errors,
+            String message,
+            Instant startedAt,
+            Instant finishedAt) {
+    }
+
+    /**
+     * Spools the upload to disk (the request stream is gone once we return),
+     * queues the import and returns immediately with its initial status.
+     * Uploads are capped at {@code imports.maxBytes} and each user at
+     * {@code imports.maxJobsPerUser} queued or running imports.
+     */
+    public ImportStatus startImport(String uid, String collectionId, Format format, InputStream upload)
+            throws IOException {
+        evictFinished();
+        reserveSlot(uid);
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile("item-import-", format == Format.CSV ? ".csv" : ".ndjson");
+            spool(upload, tmp);
+
+            ImportJob job = new ImportJob(UUID.randomUUID().toString(), uid, collectionId);
+            Path file = tmp;
+            workers.execute(() -> {
+                try {
+                    runImport(job, format, file);
+                } finally {
+                    releaseSlot(uid);
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException ignored) {
+                    }
+                }
+            });
+            jobs.put(job.id, job);
+            return job.status();
+        } catch (RejectedExecutionException e) {
+            releaseSlot(uid);
+            Files.deleteIfExists(tmp);
+            throw new TooManyImportsException("Import queue is full, try again later");
+        } catch (IOException | RuntimeException e) {
+            releaseSlot(uid);
+            if (tmp != null)
+                Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    private void reserveSlot(String uid) throws TooManyImportsException {
+        boolean[] ok = { false };
+        activeByUser.compute(uid, (k, n) -> {
+            int cur = n == null ? 0 : n;
+            if (cur >= maxJobsPerUser)
+                return n;
+            ok[0] = true;
+            return cur + 1;
+        });
+        if (!ok[0])
+            throw new TooManyImportsException("At most " + maxJobsPerUser + " imports at a time");
+    }
+
+    private void releaseSlot(String uid) {
+        activeByUser.computeIfPresent(uid, (k, n) -> n <= 1 ? null : n - 1);
+    }
+
+    // Files.copy with a ceiling: the servlet container doesn't limit raw bodies
+    private void spool(InputStream upload, Path tmp) throws IOException {
+        byte[] buf = new byte[64 * 1024];
+        long total = 0;
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            int n;
+            while ((n = upload.read(buf)) > 0) {
+                total += n;
+                if (total > maxUploadBytes)
+                    throw new UploadTooLargeException("Upload exceeds " + maxUploadBytes + " bytes");
+                out.write(buf, 0, n);
+            }
+        }
+    }
+
+    /** Progress of an import started by {@code uid}, or null if unknown/expired. */
+    public ImportStatus importStatus(String uid, String jobId) {
+        ImportJob job = jobs.get(jobId);
+        return (job != null && job.uid.equals(uid)) ? job.status() : null;
+    }
+
+    private void evictFinished() {
+        Instant cutoff = Instant.now().minus(KEEP_FINISHED);
+        jobs.values().removeIf(j -> j.finishedAt != null && j.finishedAt.isBefore(cutoff));
+    }
+
+    private void runImport(ImportJob job, Format format, Path file) {
+        job.state = "RUNNING";
+        ItemBatch writer = items.openBatch(job.uid, job.collectionId);
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            RowSource rows = format == Format.CSV ? new CsvRows(in) : new NdjsonRows(in, mapper);
+            List<Row> batch = new ArrayList<>(RESOLVE_BATCH);
+            Row row;
+            while ((row = nextRow(rows, job)) != null) {
+                batch.add(row);
+                if (batch.size() >= RESOLVE_BATCH) {
+                    writeBatch(job, writer, inFlight, batch);
+                    batch.clear();
+                }
+            }
+            writeBatch(job, writer, inFlight, batch);
+            writer.close(); // flushes and waits for every queued write
+            job.state = "DONE";
+        } catch (Exception e) {
+            try {
+                writer.close();
+            } catch (Exception ignored) {
+            }
+            job.state = "FAILED";
+            job.message = e.getClass().getSimpleName() + ": " + e.getMessage();
+        } finally {
+            job.finishedAt = Instant.now();
+        }
+    }
+
+    // skips (and reports) rows that can't even be parsed
+    private Row nextRow(RowSource rows, ImportJob job) throws IOException {
+        while (true) {
+            try {
+                Row r = rows.next();
+                if (r != null)
+                    job.rowsRead.incrementAndGet();
+                return r;
+            } catch (RowException e) {
+                job.rowsRead.incrementAndGet();
+                job.fail(e.row, e.getMessage());
+            }
+        }
+    }
+
+    private void writeBatch(ImportJob job, ItemBatch writer, Semaphore inFlight, List<Row> batch)
+            throws InterruptedException {
+        if (batch.isEmpty())
+            return;
+        Set<String> ids = new HashSet<>();
+        for (Row r : batch)
+            ids.add(r.cardId);
+        Map<String, CardItem> known = catalog.findByIds(ids);
+
+        for (Row r : batch) {
+            CardItem c = known.get(r.cardId);
+            String name = r.name != null ? r.name : (c != null ? c.name : null);
+            if (name == null) {
+                job.fail(r.line, "Unknown card id '" + r.cardId + "' and no name given");
+                continue;
+            }
+            var item = new CollectionCardItem(
+                    null,
+                    r.cardId,
+                    name,
+                    r.setName != null ? r.setName : (c != null ? c.setName : null),
+                    r.imageSmall != null ? r.imageSmall : (c != null ? c.imageSmall : null),
+                    r.priceUSD,
+                    r.priceUpdatedAt,
+                    null);
+
+            inFlight.acquire(); // backpressure: never more than MAX_IN_FLIGHT queued writes
+            long line = r.line;
+            writer.add(item).whenComplete((ok, t) -> {
+                inFlight.release();
+                if (t == null)
+                    job.written.incrementAndGet();
+                else
+                    job.fail(line, "Write failed: "
+                            + (t instanceof CompletionException && t.getCause() != null ? t.getCause() : t).getMessage());
+            });
+        }
+    }
+
+    private static final class ImportJob {
+        final String id;
+        final String uid;
+        final String collectionId;
+        final Instant startedAt = Instant.now();
+        final AtomicInteger rowsRead = new AtomicInteger();
+        final AtomicInteger written = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final List<RowError> errors = new ArrayList<>();
+        volatile String state = "QUEUED";
+        volatile String message;
+        volatile Instant finishedAt;
+
+        ImportJob(String id, String uid, String collectionId) {
+            this.id = id;
+            this.uid = uid;
+            this.collectionId = collectionId;
+        }
+
+        void fail(long row, String message) {
+            failed.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < MAX_REPORTED_ERRORS)
+                    errors.add(new RowError(row, message));
+            }
+        }
+
+        ImportStatus status() {
+            List<RowError> errs;
+            synchronized (errors) {
+                errs = List.copyOf(errors);
+            }
+            return new ImportStatus(id, collectionId, state, rowsRead.get(), written.get(), failed.get(),
+                    errs, message, startedAt, finishedAt);
+        }
+    }
+
+    // ====== row parsing ======
+
+    record Row(long line, String cardId, String name, String setName, String imageSmall, Double priceUSD,
+            String priceUpdatedAt) {
+    }
+
+    static final class RowException extends IOException {
+        final long row;
+
+        RowException(long row, String message) {
+            super(message);
+            this.row = row;
+        }
+    }
+
+    interface RowSource {
+        /** Next row, or null at end of input; throws RowException for a bad row. */
+        Row next() throws IOException;
+    }
+
+    static Row toRow(long line, Map<String, String> f) throws RowException {
+        String cardId = blankToNull(f.getOrDefault("cardid", f.get("id")));
+        if (cardId == null)
+            throw new RowException(line, "Missing cardId");
+        Double price = null;
+        String p = blankToNull(f.get("priceusd"));
+        if (p != null) {
+            try {
+                price = Double.valueOf(p);
+            } catch (NumberFormatException e) {
+                throw new RowException(line, "Invalid priceUSD '" + p + "'");
+            }
+        }
+        return new Row(line, cardId, blankToNull(f.get("name")), blankToNull(f.get("setname")),
+                blankToNull(f.get("imagesmall")), price, blankToNull(f.get("priceupdatedat")));
+    }
+
+    private static String blankToNull(String s) {
+        return (s == null || s.isBlank()) ? null : s.trim();
+    }
+
+    /** RFC 4180-ish CSV: header row, quoted fields may hold commas, quotes and newlines. */
+    static final class CsvRows implements RowSource {
+        private final BufferedReader in;
+        private List<String> header;
+        private long line; // last physical line consumed
+        private long recordStart; // first line of the current record (for error reports)
+
+        CsvRows(BufferedReader in) {
+            this.in = in;
+        }
+
+        @Override
+        public Row next() throws IOException {
+            if (header == null) {
+                List<String> h = readRecord();
+                if (h == null)
+                    return null;
+                header = new ArrayList<>();
+                for (String col : h)
+                    header.add(col.replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT)); // Excel BOM
+            }
+            List<String> rec;
+            do {
+                rec = readRecord();
+                if (rec == null)
+                    return null;
+            } while (rec.size() == 1 && rec.get(0).isBlank());
+
+            Map<String, String> f = new HashMap<>();
+            for (int i = 0; i < header.size() && i < rec.size(); i++)
+                f.put(header.get(i), fromTextCell(rec.get(i)));
+            return toRow(recordStart, f);
+        }
+
+        private List<String> readRecord() throws IOException {
+            String l = in.readLine();
+            if (l == null)
+                return null;
+            line++;
+            recordStart = line;
+            List<String> out = new ArrayList<>();
+            StringBuilder cur = new StringBuilder();
+            boolean quoted = false;
+            while (true) {
+                for (int i = 0; i < l.length(); i++) {
+                    char ch = l.charAt(i);
+                    if (quoted) {
+                        if (ch == '"') {
+                            if (i + 1 < l.length() && l.charAt(i + 1) == '"') {
+                                cur.append('"');
+                                i++;
+                            } else {
+                                quoted = false;
+                            }
+                        } else {
+                            cur.append(ch);
+                        }
+                    } else if (ch == '"') {
+                        quoted = true;
+                    } else if (ch == ',') {
+                        out.add(cur.toString());
+                        cur.setLength(0);
+                    } else {
+                        cur.append(ch);
+                    }
+                }
+                if (!quoted)
+                    break;
+                l = in.readLine();
+                if (l == null)
+                    throw new RowException(recordStart, "Unterminated quoted field");
+                line++;
+                cur.append('\n');
+            }
+            out.add(cur.toString());
+            return out;
+        }
+    }
+
+    /** One JSON object per line; blank lines are skipped. */
+    static final class NdjsonRows implements RowSource {
+        private final BufferedReader in;
+        private final ObjectMapper mapper;
+        private long line;
+
+        NdjsonRows(BufferedReader in, ObjectMapper mapper) {
+            this.in = in;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public Row next() throws IOException {
+            String l;
+            do {
+                l = in.readLine();
+                if (l == null)
+                    return null;
+                line++;
+            } while (l.isBlank());
+
+            JsonNode node;
+            try {
+                node = mapper.readTree(l);
+            } catch (IOException e) {
+                throw new RowException(line, "Invalid JSON");
+            }
+            if (node == null || !node.isObject())
+                throw new RowException(line, "Expected a JSON object");
+            Map<String, String> f = new HashMap<>();
+            for (Map.Entry<String, JsonNode> e : node.properties()) {
+                JsonNode v = e.getValue();
+                if (!v.isNull())
+                    f.put(e.getKey().toLowerCase(Locale.ROOT), v.asText());
+            }
+            return toRow(line, f);
+        }
+    }
+}
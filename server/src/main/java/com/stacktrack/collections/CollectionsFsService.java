@@ -1,28 +1,47 @@
 package com.stacktrack.collections;
 
 import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.api.gax.rpc.ApiStreamObserver;
 import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.*;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.stacktrack.catalog.CardPopularityService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
-public class CollectionsFsService {
+@ConditionalOnProperty(name = "storage.backend", havingValue = "firestore", matchIfMissing = true)
+public class CollectionsFsService implements CollectionStore {
 
     private final Firestore db;
+    private final CardPopularityService popularity;
 
-    public CollectionsFsService(Firestore db) {
+    public CollectionsFsService(Firestore db, CardPopularityService popularity) {
         this.db = db;
+        this.popularity = popularity;
     }
 
     private CollectionReference colRefForUser(String uid) {
         return db.collection("users").document(uid).collection("collections");
     }
 
+    @Override
     public List<CollectionItem> list(String uid) throws Exception {
         ApiFuture<QuerySnapshot> fut = colRefForUser(uid).orderBy("createdAt", Query.Direction.DESCENDING).get();
 
@@ -37,6 +56,7 @@ public class CollectionsFsService {
         return out;
     }
 
+    @Override
     public CollectionItem create(String uid, String name) throws Exception {
         Map<String, Object> data = Map.of(
                 "name", name,
@@ -50,27 +70,52 @@ public class CollectionsFsService {
         return new CollectionItem(ref.getId(), name, createdAt);
     }
 
+    // items per delete transaction: each one plus a shard decrement per distinct card
+    static final int DELETE_CHUNK = 200;
+
+    // Firestore doesn't cascade to the items subcollection: delete those first,
+    // un-counting their cards, so popularity matches what is still collected
+    @Override
     public void delete(String uid, String id) throws Exception {
-        colRefForUser(uid).document(id).delete().get();
+        DocumentReference col = colRefForUser(uid).document(id);
+        List<DocumentReference> items = new ArrayList<>();
+        col.collection("items").listDocuments().forEach(items::add);
+        for (int i = 0; i < items.size(); i += DELETE_CHUNK) {
+            DocumentReference[] chunk = items.subList(i, Math.min(i + DELETE_CHUNK, items.size()))
+                    .toArray(DocumentReference[]::new);
+            // read + delete + un-count together, like deleteItem, so a concurrent
+            // delete of the same items can't decrement twice
+            Map<String, Long> uncounted = db.runTransaction(t -> {
+                Map<String, Long> byCard = new java.util.HashMap<>();
+                for (DocumentSnapshot snap : t.getAll(chunk).get()) {
+                    if (!snap.exists())
+                        continue;
+                    String cardId = snap.getString("cardId");
+                    if (cardId != null)
+                        byCard.merge(cardId, 1L, Long::sum);
+                    t.delete(snap.getReference());
+                }
+                byCard.forEach((cardId, n) -> t.set(popularity.shard(cardId), popularity.increment(-n),
+                        SetOptions.merge()));
+                return byCard;
+            }).get();
+            uncounted.keySet().forEach(popularity::changed);
+        }
+        col.delete().get();
     }
 
+    @Override
     public CollectionCardItem addItem(String uid, String collectionId, CollectionCardItem item) throws Exception {
         CollectionReference itemsRef = colRefForUser(uid)
                 .document(collectionId)
                 .collection("items");
 
-        // map to Firestore fields
-        var data = new java.util.HashMap<String, Object>();
-        data.put("cardId", item.getCardId());
-        data.put("name", item.getName());
-        data.put("setName", item.getSetName());
-        data.put("imageSmall", item.getImageSmall());
-        data.put("priceUSD", item.getPriceUSD());
-        data.put("priceUpdatedAt", item.getPriceUpdatedAt());
-        data.put("addedAt", FieldValue.serverTimestamp());
-
         DocumentReference ref = itemsRef.document(); // auto id
-        ref.set(data).get();
+        WriteBatch batch = db.batch(); // item + popularity bump land together
+        batch.set(ref, toData(item));
+        batch.set(popularity.shard(item.getCardId()), popularity.increment(1), SetOptions.merge());
+        batch.commit().get();
+        popularity.changed(item.getCardId());
 
         // read back to resolve serverTimestamp
         DocumentSnapshot snap = ref.get().get();
@@ -88,29 +133,252 @@ public class CollectionsFsService {
                 addedAt);
     }
 
-    public List<CollectionCardItem> listItems(String uid, String collectionId) throws Exception {
+    /**
+     * Bulk adds through a Firestore {@link BulkWriter} (which batches and
+     * rate-limits on its own); no read-back, so addedAt is only known once the
+     * write lands. Popularity is counted only for items that were written and
+     * applied on close, one increment per distinct card.
+     */
+    @Override
+    public ItemBatch openBatch(String uid, String collectionId) {
         CollectionReference itemsRef = colRefForUser(uid).document(collectionId).collection("items");
-        ApiFuture<QuerySnapshot> fut = itemsRef.orderBy("addedAt", Query.Direction.DESCENDING).get();
+        BulkWriter writer = db.bulkWriter();
+        Map<String, Long> written = new ConcurrentHashMap<>();
+        return new ItemBatch() {
+            @Override
+            public CompletableFuture<Void> add(CollectionCardItem item) {
+                return toCompletable(writer.set(itemsRef.document(), toData(item))).thenAccept(r -> {
+                    if (item.getCardId() != null)
+                        written.merge(item.getCardId(), 1L, Long::sum);
+                });
+            }
 
-        List<CollectionCardItem> out = new ArrayList<>();
-        for (QueryDocumentSnapshot d : fut.get().getDocuments()) {
-            String id = d.getId();
-            String cardId = d.getString("cardId");
-            String name = d.getString("name");
-            String setName = d.getString("setName");
-            String imageSmall = d.getString("imageSmall");
-            Double priceUSD = d.contains("priceUSD") ? d.getDouble("priceUSD") : null;
-            String priceUpdatedAt = d.getString("priceUpdatedAt");
-            Timestamp ts = d.getTimestamp("addedAt");
-            Instant addedAt = ts != null ? ts.toDate().toInstant() : Instant.EPOCH;
-
-            out.add(new CollectionCardItem(id, cardId, name, setName, imageSmall, priceUSD, priceUpdatedAt, addedAt));
+            @Override
+            public void close() throws Exception {
+                writer.close(); // flushes and waits for every queued write
+                popularity.add(written);
+            }
+        };
+    }
+
+    // cancelling the result cancels f (the RPC) too
+    private static <T> CompletableFuture<T> toCompletable(ApiFuture<T> f) {
+        CompletableFuture<T> out = new CompletableFuture<>();
+        out.whenComplete((r, t) -> {
+            if (out.isCancelled())
+                f.cancel(true);
+        });
+        ApiFutures.addCallback(f, new ApiFutureCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                out.complete(result);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                out.completeExceptionally(t);
+            }
+        }, MoreExecutors.directExecutor());
+        return out;
+    }
+
+    // map to Firestore fields
+    private static Map<String, Object> toData(CollectionCardItem item) {
+        var data = new java.util.HashMap<String, Object>();
+        data.put("cardId", item.getCardId());
+        data.put("name", item.getName());
+        data.put("setName", item.getSetName());
+        data.put("imageSmall", item.getImageSmall());
+        data.put("priceUSD", item.getPriceUSD());
+        data.put("priceUpdatedAt", item.getPriceUpdatedAt());
+        data.put("addedAt", FieldValue.serverTimestamp());
+        return data;
+    }
+
+    @Override
+    public List<CollectionCardItem> listItems(String uid, String collectionId) throws Exception {
+        return listItemsAsync(uid, collectionId).get();
+    }
+
+    @Override
+    public CompletableFuture<List<CollectionCardItem>> listItemsAsync(String uid, String collectionId) {
+        return convert(itemsQuery(uid, collectionId).get(), snap -> {
+            List<CollectionCardItem> out = new ArrayList<>();
+            for (QueryDocumentSnapshot d : snap.getDocuments()) {
+                out.add(toCardItem(d));
+            }
+            return out;
+        });
+    }
+
+    // toCompletable(f).thenApply(fn), except that cancelling the result also
+    // cancels f: thenApply's future doesn't pass a cancel back up the chain
+    static <T, R> CompletableFuture<R> convert(ApiFuture<T> f, Function<T, R> fn) {
+        CompletableFuture<T> src = toCompletable(f);
+        CompletableFuture<R> out = src.thenApply(fn);
+        out.whenComplete((r, t) -> {
+            if (out.isCancelled())
+                src.cancel(true);
+        });
+        return out;
+    }
+
+    // one Firestore getAll for all of them
+    @Override
+    public List<CollectionItem> getCollections(String uid, List<String> ids) throws Exception {
+        if (ids.isEmpty())
+            return List.of();
+        DocumentReference[] refs = new DocumentReference[ids.size()];
+        for (int i = 0; i < refs.length; i++)
+            refs[i] = colRefForUser(uid).document(ids.get(i));
+
+        List<CollectionItem> out = new ArrayList<>();
+        for (DocumentSnapshot d : db.getAll(refs).get()) {
+            if (!d.exists())
+                continue;
+            Timestamp ts = d.getTimestamp("createdAt");
+            Instant createdAt = ts != null ? ts.toDate().toInstant() : Instant.EPOCH;
+            out.add(new CollectionItem(d.getId(), d.getString("name"), createdAt));
         }
         return out;
     }
 
+    // Query.stream: no snapshot or list of the whole collection is ever held
+    @Override
+    public void streamItems(String uid, String collectionId, ItemSink sink) throws Exception {
+        handOff(obs -> itemsQuery(uid, collectionId).stream(obs), CollectionsFsService::toCardItem, sink);
+    }
+
+    static final int STREAM_BUFFER = 64;
+    private static final Object END = new Object();
+
+    private record StreamFailure(Throwable cause) {
+    }
+
+    /**
+     * Runs {@code sink} on the calling thread for every document an
+     * asynchronous stream delivers. The gRPC callback only enqueues into a
+     * small bounded buffer (waiting while it is full, which is the
+     * backpressure), so a slow client never runs on, or stalls, Firestore's
+     * threads beyond that. {@code start} must not deliver on the calling thread.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> void handOff(Consumer<ApiStreamObserver<T>> start, Function<T, CollectionCardItem> convert,
+            ItemSink sink) throws Exception {
+        BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(STREAM_BUFFER);
+        AtomicBoolean abandoned = new AtomicBoolean(); // consumer is gone; drop the rest
+        start.accept(new ApiStreamObserver<T>() {
+            @Override
+            public void onNext(T d) {
+                put(d);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                put(new StreamFailure(t));
+            }
+
+            @Override
+            public void onCompleted() {
+                put(END);
+            }
+
+            private void put(Object o) {
+                try {
+                    while (!abandoned.get() && !buffer.offer(o, 100, TimeUnit.MILLISECONDS)) {
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        try {
+            while (true) {
+                Object o = buffer.take();
+                if (o == END)
+                    return;
+                if (o instanceof StreamFailure f) {
+                    if (f.cause() instanceof Exception cause)
+                        throw cause;
+                    throw new ExecutionException(f.cause());
+                }
+                sink.accept(convert.apply((T) o));
+            }
+        } finally {
+            abandoned.set(true);
+            buffer.clear(); // unblocks a producer waiting on a full buffer
+        }
+    }
+
+    // Snapshot listener whose initial snapshot (the whole collection) is
+    // swallowed; callbacks run on Firestore's listener thread.
+    @Override
+    public Registration listenItems(String uid, String collectionId, Runnable onReady,
+            Consumer<List<ItemChange>> onChanges, Consumer<Throwable> onError) {
+        boolean[] initial = { true };
+        ListenerRegistration reg = itemsQuery(uid, collectionId).addSnapshotListener((snap, err) -> {
+            if (err != null) {
+                onError.accept(err);
+                return;
+            }
+            if (snap == null)
+                return;
+            if (initial[0]) { // current state: the listener is live from here on
+                initial[0] = false;
+                onReady.run();
+                return;
+            }
+            List<ItemChange> out = new ArrayList<>(snap.getDocumentChanges().size());
+            for (DocumentChange ch : snap.getDocumentChanges()) {
+                String type = switch (ch.getType()) {
+                    case ADDED -> "added";
+                    case MODIFIED -> "modified";
+                    case REMOVED -> "removed";
+                };
+                out.add(new ItemChange(type, toCardItem(ch.getDocument())));
+            }
+            if (!out.isEmpty())
+                onChanges.accept(out);
+        });
+        return reg::remove;
+    }
+
+    private Query itemsQuery(String uid, String collectionId) {
+        return colRefForUser(uid).document(collectionId).collection("items")
+                .orderBy("addedAt", Query.Direction.DESCENDING);
+    }
+
+    private static CollectionCardItem toCardItem(DocumentSnapshot d) {
+        String id = d.getId();
+        String cardId = d.getString("cardId");
+        String name = d.getString("name");
+        String setName = d.getString("setName");
+        String imageSmall = d.getString("imageSmall");
+        Double priceUSD = d.contains("priceUSD") ? d.getDouble("priceUSD") : null;
+        String priceUpdatedAt = d.getString("priceUpdatedAt");
+        Timestamp ts = d.getTimestamp("addedAt");
+        Instant addedAt = ts != null ? ts.toDate().toInstant() : Instant.EPOCH;
+
+        return new CollectionCardItem(id, cardId, name, setName, imageSmall, priceUSD, priceUpdatedAt, addedAt);
+    }
+
+    @Override
     public void deleteItem(String uid, String collectionId, String itemId) throws Exception {
-        colRefForUser(uid).document(collectionId).collection("items").document(itemId).delete().get();
+        DocumentReference ref = colRefForUser(uid).document(collectionId).collection("items").document(itemId);
+        // read + delete + un-count in one transaction, so concurrent deletes of the
+        // same item decrement once; a missing doc makes this a no-op like before
+        String cardId = db.runTransaction(t -> {
+            DocumentSnapshot snap = t.get(ref).get();
+            if (!snap.exists())
+                return null;
+            String id = snap.getString("cardId");
+            t.delete(ref);
+            if (id != null)
+                t.set(popularity.shard(id), popularity.increment(-1), SetOptions.merge());
+            return id;
+        }).get();
+        if (cardId != null)
+            popularity.changed(cardId);
     }
 
 }
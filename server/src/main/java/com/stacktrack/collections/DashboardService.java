@@ -0,0 +1,118 @@
+package com.stacktrack.collections;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Everything a collection page needs in one call: the collection docs (one
+ * getAll, or the user's full list) and, optionally, every collection's items
+ * with all item queries in flight at once. Each section fails on its own;
+ * errors are reported next to the data instead of failing the whole payload.
+ */
+@Service
+public class DashboardService {
+
+    static final int MAX_COLLECTIONS = 25;
+
+    private final CollectionStore svc;
+    private final long sectionTimeoutMs;
+
+    public DashboardService(CollectionStore svc,
+            @Value("${dashboard.sectionTimeoutMs:10000}") long sectionTimeoutMs) {
+        this.svc = svc;
+        this.sectionTimeoutMs = sectionTimeoutMs;
+    }
+
+    public record CollectionSection(
+            String id,
+            String name,
+            Instant createdAt,
+            List<CollectionCardItem> items, // null when not requested or failed
+            String itemsError) {
+    }
+
+    public record Dashboard(
+            List<CollectionSection> collections,
+            List<String> missing, // requested ids that don't exist
+            Map<String, String> errors) { // section -> message
+    }
+
+    /** {@code ids} null/empty means all of the user's collections. */
+    public Dashboard load(String uid, List<String> ids, boolean includeItems) {
+        Map<String, String> errors = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+
+        List<CollectionItem> cols;
+        try {
+            if (ids == null || ids.isEmpty()) {
+                cols = svc.list(uid);
+            } else {
+                List<String> distinct = ids.stream().distinct().toList();
+                List<String> wanted = distinct.subList(0, Math.min(distinct.size(), MAX_COLLECTIONS));
+                if (distinct.size() > MAX_COLLECTIONS) {
+                    errors.put("collections", "Only the first " + MAX_COLLECTIONS + " collections are loaded; skipped "
+                            + String.join(",", distinct.subList(MAX_COLLECTIONS, distinct.size())));
+                }
+                cols = svc.getCollections(uid, wanted);
+                Set<String> found = new HashSet<>();
+                cols.forEach(c -> found.add(c.getId()));
+                wanted.stream().filter(id -> !found.contains(id)).forEach(missing::add);
+            }
+        } catch (Exception e) {
+            errors.put("collections", message(e));
+            return new Dashboard(List.of(), missing, errors);
+        }
+        if (cols.size() > MAX_COLLECTIONS && includeItems) {
+            errors.put("items", "Items included for the first " + MAX_COLLECTIONS + " collections only");
+        }
+
+        // fire every item query before waiting on any of them
+        List<CompletableFuture<List<CollectionCardItem>>> pending = new ArrayList<>();
+        for (int i = 0; i < cols.size(); i++) {
+            pending.add(includeItems && i < MAX_COLLECTIONS
+                    ? svc.listItemsAsync(uid, cols.get(i).getId())
+                    : null);
+        }
+
+        // one shared deadline: the queries run concurrently, so waits don't add up
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMs);
+        List<CollectionSection> out = new ArrayList<>(cols.size());
+        for (int i = 0; i < cols.size(); i++) {
+            CollectionItem c = cols.get(i);
+            List<CollectionCardItem> items = null;
+            String itemsError = null;
+            CompletableFuture<List<CollectionCardItem>> f = pending.get(i);
+            if (f != null) {
+                try {
+                    items = f.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    itemsError = "Interrupted";
+                } catch (TimeoutException e) {
+                    f.cancel(true);
+                    itemsError = "Timed out";
+                } catch (ExecutionException e) {
+                    itemsError = message(e.getCause());
+                }
+            }
+            out.add(new CollectionSection(c.getId(), c.getName(), c.getCreatedAt(), items, itemsError));
+        }
+        return new Dashboard(out, missing, errors);
+    }
+
+    private static String message(Throwable t) {
+        return t.getClass().getSimpleName() + ": " + t.getMessage();
+    }
+}
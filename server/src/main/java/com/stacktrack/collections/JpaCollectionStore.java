@@ -0,0 +1,342 @@
+package com.stacktrack.collections;
+
+import com.stacktrack.catalog.CardCountSource;
+import com.stacktrack.model.Collection;
+import com.stacktrack.model.CollectionCard;
+import com.stacktrack.repo.CollectionCardRepository;
+import com.stacktrack.repo.CollectionRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Relational {@link CollectionStore} on the JPA {@link Collection} /
+ * {@link CollectionCard} entities, enabled with {@code storage.backend=jpa}
+ * (see application-jpa.properties). Numeric ids are exposed as strings; every
+ * item operation checks that the collection belongs to the caller. Item lists
+ * are read in keyset pages and bulk adds are written as JDBC batches. Change
+ * notifications are in-process, so they only reach subscribers on this node.
+ */
+@Service
+@ConditionalOnProperty(name = "storage.backend", havingValue = "jpa")
+public class JpaCollectionStore implements CollectionStore, CardCountSource {
+
+    static final int PAGE_SIZE = 500;
+    static final int BATCH_SIZE = 500;
+
+    private final CollectionRepository collections;
+    private final CollectionCardRepository cards;
+    private final TransactionTemplate tx;
+    private final Map<Long, List<Listener>> listeners = new ConcurrentHashMap<>();
+    private final ExecutorService readers = Executors.newFixedThreadPool(4, r -> {
+        Thread t = new Thread(r, "jpa-read");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private record Listener(Consumer<List<ItemChange>> onChanges, Consumer<Throwable> onError) {
+    }
+
+    public JpaCollectionStore(CollectionRepository collections, CollectionCardRepository cards,
+            PlatformTransactionManager txManager) {
+        this.collections = collections;
+        this.cards = cards;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        readers.shutdownNow();
+    }
+
+    @Override
+    public List<CollectionItem> list(String uid) {
+        List<CollectionItem> out = new ArrayList<>();
+        for (Collection c : collections.findByUidOrderByCreatedAtDesc(uid))
+            out.add(toItem(c));
+        return out;
+    }
+
+    @Override
+    public List<CollectionItem> getCollections(String uid, List<String> ids) {
+        List<Long> keys = new ArrayList<>();
+        for (String id : ids) {
+            Long key = parseId(id);
+            if (key != null)
+                keys.add(key);
+        }
+        if (keys.isEmpty())
+            return List.of();
+        Map<Long, Collection> found = new HashMap<>();
+        for (Collection c : collections.findByUidAndIdIn(uid, keys))
+            found.put(c.getId(), c);
+
+        List<CollectionItem> out = new ArrayList<>();
+        for (Long key : keys) {
+            Collection c = found.get(key);
+            if (c != null)
+                out.add(toItem(c));
+        }
+        return out;
+    }
+
+    @Override
+    public CollectionItem create(String uid, String name) {
+        Collection c = new Collection();
+        c.setUid(uid);
+        c.setName(name);
+        return toItem(collections.save(c));
+    }
+
+    @Override
+    public void delete(String uid, String id) {
+        Long key = parseId(id);
+        if (key == null)
+            return;
+        tx.executeWithoutResult(s -> collections.findByIdAndUid(key, uid).ifPresent(c -> {
+            cards.deleteByCollection(key);
+            collections.delete(c);
+        }));
+    }
+
+    @Override
+    public CollectionCardItem addItem(String uid, String collectionId, CollectionCardItem item) {
+        Long key = requireOwned(uid, collectionId);
+        CollectionCard saved = cards.save(toEntity(key, item));
+        CollectionCardItem out = toCardItem(saved);
+        publish(key, List.of(new ItemChange("added", out)));
+        return out;
+    }
+
+    @Override
+    public ItemBatch openBatch(String uid, String collectionId) {
+        return new Batch(uid, collectionId);
+    }
+
+    // Buffers adds and writes them BATCH_SIZE at a time in one transaction;
+    // hibernate.jdbc.batch_size turns each flush into a few multi-row inserts.
+    private final class Batch implements ItemBatch {
+        private final String uid;
+        private final String collectionId;
+        private final List<CollectionCard> pending = new ArrayList<>(BATCH_SIZE);
+        private final List<CompletableFuture<Void>> waiting = new ArrayList<>(BATCH_SIZE);
+        private Long key; // resolved (and ownership checked) on first flush
+
+        Batch(String uid, String collectionId) {
+            this.uid = uid;
+            this.collectionId = collectionId;
+        }
+
+        @Override
+        public synchronized CompletableFuture<Void> add(CollectionCardItem item) {
+            CompletableFuture<Void> f = new CompletableFuture<>();
+            pending.add(toEntity(null, item));
+            waiting.add(f);
+            if (pending.size() >= BATCH_SIZE)
+                flush();
+            return f;
+        }
+
+        @Override
+        public synchronized void close() {
+            flush();
+        }
+
+        private void flush() {
+            if (pending.isEmpty())
+                return;
+            List<CollectionCard> chunk = new ArrayList<>(pending);
+            List<CompletableFuture<Void>> done = new ArrayList<>(waiting);
+            pending.clear();
+            waiting.clear();
+            try {
+                if (key == null)
+                    key = requireOwned(uid, collectionId);
+                chunk.forEach(c -> c.setCollectionId(key));
+                List<CollectionCard> saved = tx.execute(s -> cards.saveAll(chunk));
+                done.forEach(f -> f.complete(null));
+                List<ItemChange> changes = new ArrayList<>(saved.size());
+                for (CollectionCard c : saved)
+                    changes.add(new ItemChange("added", toCardItem(c)));
+                publish(key, changes);
+            } catch (RuntimeException e) {
+                done.forEach(f -> f.completeExceptionally(e));
+            }
+        }
+    }
+
+    @Override
+    public List<CollectionCardItem> listItems(String uid, String collectionId) throws Exception {
+        List<CollectionCardItem> out = new ArrayList<>();
+        streamItems(uid, collectionId, out::add);
+        return out;
+    }
+
+    @Override
+    public CompletableFuture<List<CollectionCardItem>> listItemsAsync(String uid, String collectionId) {
+        CompletableFuture<List<CollectionCardItem>> out = new CompletableFuture<>();
+        try {
+            Future<?> task = readers.submit(() -> {
+                try {
+                    List<CollectionCardItem> items = new ArrayList<>();
+                    streamItems(uid, collectionId, it -> {
+                        if (out.isDone()) // cancelled: stop paging instead of building the rest
+                            throw new CancellationException();
+                        items.add(it);
+                    });
+                    out.complete(items);
+                } catch (Throwable t) {
+                    out.completeExceptionally(t);
+                }
+            });
+            // cancelling the result drops a queued read, or interrupts a running one
+            out.whenComplete((r, t) -> {
+                if (out.isCancelled())
+                    task.cancel(true);
+            });
+        } catch (RuntimeException e) { // executor shut down
+            out.completeExceptionally(e);
+        }
+        return out;
+    }
+
+    // Keyset pages of PAGE_SIZE: each page is an index range scan, however deep.
+    @Override
+    public void streamItems(String uid, String collectionId, ItemSink sink) throws Exception {
+        Long key = parseId(collectionId);
+        if (key == null || collections.findByIdAndUid(key, uid).isEmpty())
+            return; // like an empty Firestore subcollection
+        List<CollectionCard> page = cards.firstPage(key, Limit.of(PAGE_SIZE));
+        while (!page.isEmpty()) {
+            for (CollectionCard c : page)
+                sink.accept(toCardItem(c));
+            if (page.size() < PAGE_SIZE)
+                break;
+            CollectionCard last = page.get(page.size() - 1);
+            page = cards.pageAfter(key, last.getAddedAt(), last.getId(), Limit.of(PAGE_SIZE));
+        }
+    }
+
+    @Override
+    public void deleteItem(String uid, String collectionId, String itemId) {
+        Long key = parseId(collectionId);
+        Long id = parseId(itemId);
+        if (key == null || id == null)
+            return;
+        CollectionCard removed = tx.execute(s -> {
+            if (collections.findByIdAndUid(key, uid).isEmpty())
+                return null;
+            CollectionCard c = cards.findById(id).orElse(null);
+            if (c == null || !key.equals(c.getCollectionId()))
+                return null;
+            cards.delete(c);
+            return c;
+        });
+        if (removed != null)
+            publish(key, List.of(new ItemChange("removed", toCardItem(removed))));
+    }
+
+    @Override
+    public Registration listenItems(String uid, String collectionId, Runnable onReady,
+            Consumer<List<ItemChange>> onChanges, Consumer<Throwable> onError) {
+        Long key = parseId(collectionId);
+        if (key == null || collections.findByIdAndUid(key, uid).isEmpty()) {
+            // never call back into the subscriber before it has our registration
+            NoSuchElementException missing = new NoSuchElementException("Collection not found: " + collectionId);
+            try {
+                readers.execute(() -> onError.accept(missing));
+            } catch (RuntimeException e) { // executor shut down
+            }
+            return () -> {
+            };
+        }
+        Listener l = new Listener(onChanges, onError);
+        listeners.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(l);
+        try {
+            readers.execute(onReady); // registered: every later commit is published to us
+        } catch (RuntimeException e) { // executor shut down
+        }
+        return () -> listeners.computeIfPresent(key, (k, ls) -> {
+            ls.remove(l);
+            return ls.isEmpty() ? null : ls;
+        });
+    }
+
+    // called after commit, on the writer's thread
+    private void publish(Long key, List<ItemChange> changes) {
+        List<Listener> ls = listeners.get(key);
+        if (ls == null || changes.isEmpty())
+            return;
+        for (Listener l : ls) {
+            try {
+                l.onChanges().accept(changes);
+            } catch (RuntimeException e) {
+                l.onError().accept(e);
+            }
+        }
+    }
+
+    @Override
+    public Map<String, Long> cardCounts() {
+        Map<String, Long> out = new HashMap<>();
+        for (Object[] row : cards.countByCard())
+            out.put((String) row[0], (Long) row[1]);
+        return out;
+    }
+
+    private Long requireOwned(String uid, String collectionId) {
+        Long key = parseId(collectionId);
+        if (key == null || collections.findByIdAndUid(key, uid).isEmpty())
+            throw new NoSuchElementException("Collection not found: " + collectionId);
+        return key;
+    }
+
+    private static Long parseId(String id) {
+        try {
+            return id == null ? null : Long.valueOf(id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static CollectionItem toItem(Collection c) {
+        return new CollectionItem(String.valueOf(c.getId()), c.getName(), c.getCreatedAt());
+    }
+
+    private static CollectionCard toEntity(Long collectionId, CollectionCardItem item) {
+        CollectionCard c = new CollectionCard();
+        c.setCollectionId(collectionId);
+        c.setCardId(item.getCardId());
+        c.setName(item.getName());
+        c.setSetName(item.getSetName());
+        c.setImageSmall(item.getImageSmall());
+        c.setPriceUSD(item.getPriceUSD());
+        c.setPriceUpdatedAt(item.getPriceUpdatedAt());
+        c.setAddedAt(Instant.now().truncatedTo(ChronoUnit.MICROS)); // what the column keeps
+        return c;
+    }
+
+    private static CollectionCardItem toCardItem(CollectionCard c) {
+        return new CollectionCardItem(String.valueOf(c.getId()), c.getCardId(), c.getName(), c.getSetName(),
+                c.getImageSmall(), c.getPriceUSD(), c.getPriceUpdatedAt(), c.getAddedAt());
+    }
+}
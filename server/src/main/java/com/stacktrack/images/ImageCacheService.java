@@ -0,0 +1,407 @@
+package com.stacktrack.images;
+
+import com.stacktrack.catalog.SeedCatalogService;
+import com.stacktrack.catalog.SeedCatalogService.CardItem;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * On-disk, size-capped LRU cache of small card images fetched from the image
+ * origin (images.pokemontcg.io by default). Concurrent misses for the same
+ * card share one origin fetch. Files are named after the card id, so the cache
+ * survives restarts; the LRU order is rebuilt from file mtimes.
+ *
+ * Misses only go to the origin for known cards: the seed catalog, plus ids
+ * {@link #admit admitted} because a signed-in user's collection or the upstream
+ * catalog listed them. Origin 404s are remembered for a while. Evicted files
+ * are deleted after a grace period, so responses already handed a path (Tomcat
+ * sendfile opens it after the controller returns) can still read it.
+ */
+@Service
+public class ImageCacheService {
+
+    // card ids look like "base1-4" or "swsh12pt5gg-GG01"; anything else is rejected
+    private static final Pattern CARD_ID = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]{0,63}");
+    static final int MAX_ADMITTED = 50_000;
+    static final int MAX_NOT_FOUND = 10_000;
+    private static final Duration NOT_FOUND_TTL = Duration.ofMinutes(10);
+
+    public static final class NotFoundException extends IOException {
+        public NotFoundException(String message) {
+            super(message);
+        }
+    }
+
+    public static final class CachedImage {
+        private final Path path;
+        private final long size;
+        private volatile String etag;
+
+        CachedImage(Path path, long size, String etag) {
+            this.path = path;
+            this.size = size;
+            this.etag = etag;
+        }
+
+        public Path path() {
+            return path;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        /** Strong validator: SHA-256 of the bytes (computed lazily for files found on startup). */
+        public String etag() throws IOException {
+            String e = etag;
+            if (e == null) {
+                try (InputStream in = Files.newInputStream(path)) {
+                    e = sha256(in);
+                }
+                etag = e;
+            }
+            return e;
+        }
+    }
+
+    private final Path dir;
+    private final long maxBytes;
+    private final String originBase;
+    private final SeedCatalogService catalog;
+    private final HttpClient http;
+    private final long deleteGraceMs;
+
+    // access-ordered: iteration starts at the least recently used entry
+    private final LinkedHashMap<String, CachedImage> lru = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+    // evicted file -> when; deleted once past the grace period unless live again (guarded by lru)
+    private final Map<Path, Long> evicted = new LinkedHashMap<>();
+    // ids that may miss besides catalog cards (access-ordered, bounded)
+    private final Map<String, Boolean> admitted = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_ADMITTED;
+        }
+    };
+    // card id -> when the origin said 404
+    private final Map<String, Long> notFound = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > MAX_NOT_FOUND;
+        }
+    };
+    private final Map<String, CompletableFuture<CachedImage>> inFlight = new ConcurrentHashMap<>();
+    private final ExecutorService fetchers = Executors.newFixedThreadPool(4, r -> {
+        Thread t = new Thread(r, "image-fetch");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public ImageCacheService(
+            @Value("${images.cache.dir:${java.io.tmpdir}/stacktrack-images}") String dir,
+            @Value("${images.cache.maxBytes:536870912}") long maxBytes,
+            @Value("${images.origin.baseUrl:https://images.pokemontcg.io}") String originBase,
+            @Value("${images.cache.deleteGraceMs:60000}") long deleteGraceMs,
+            SeedCatalogService catalog) throws IOException {
+        this.dir = Path.of(dir);
+        this.deleteGraceMs = deleteGraceMs;
+        this.maxBytes = maxBytes;
+        this.originBase = originBase.replaceAll("/+$", "");
+        this.catalog = catalog;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(6))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        Files.createDirectories(this.dir);
+        loadExisting();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fetchers.shutdownNow();
+    }
+
+    public static boolean isValidCardId(String cardId) {
+        return cardId != null && CARD_ID.matcher(cardId).matches();
+    }
+
+    /** Cached image for the card, fetching it from the origin on a miss. */
+    public CachedImage get(String cardId) throws IOException {
+        if (!isValidCardId(cardId))
+            throw new NotFoundException("Invalid card id");
+        synchronized (lru) {
+            CachedImage hit = lru.get(cardId);
+            if (hit != null && Files.exists(hit.path()))
+                return hit;
+        }
+        if (!isAdmitted(cardId))
+            throw new NotFoundException("Unknown card " + cardId);
+        if (knownMissing(cardId))
+            throw new NotFoundException("No image for " + cardId);
+        try {
+            return fetchShared(cardId).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching image", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io)
+                throw io;
+            throw new IOException("Image fetch failed", e.getCause());
+        }
+    }
+
+    /**
+     * Lets these ids miss the cache even if the seed catalog doesn't have them.
+     * For ids a signed-in user's collection or the upstream catalog listed.
+     */
+    public void admit(Collection<String> cardIds) {
+        synchronized (admitted) {
+            for (String id : cardIds) {
+                if (isValidCardId(id))
+                    admitted.put(id, Boolean.TRUE);
+            }
+        }
+    }
+
+    private boolean isAdmitted(String cardId) {
+        synchronized (admitted) {
+            if (admitted.containsKey(cardId))
+                return true;
+        }
+        return catalog.findByIds(List.of(cardId)).containsKey(cardId);
+    }
+
+    private boolean knownMissing(String cardId) {
+        synchronized (notFound) {
+            Long at = notFound.get(cardId);
+            if (at == null)
+                return false;
+            if (System.currentTimeMillis() - at > NOT_FOUND_TTL.toMillis()) {
+                notFound.remove(cardId);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private void rememberMissing(String cardId) {
+        synchronized (notFound) {
+            notFound.put(cardId, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Admits the given cards (callers pass ids from the signed-in user's
+     * collection) and warms the cache for them in the background; returns how
+     * many were not cached yet and got queued.
+     */
+    public int prefetch(Collection<String> cardIds) {
+        Set<String> ids = new LinkedHashSet<>(cardIds);
+        admit(ids);
+        int queued = 0;
+        for (String id : ids) {
+            if (!isValidCardId(id) || knownMissing(id))
+                continue;
+            synchronized (lru) {
+                if (lru.containsKey(id))
+                    continue;
+            }
+            fetchShared(id);
+            queued++;
+        }
+        return queued;
+    }
+
+    // one fetch per card id, however many callers miss at the same time
+    private CompletableFuture<CachedImage> fetchShared(String cardId) {
+        CompletableFuture<CachedImage> mine = new CompletableFuture<>();
+        CompletableFuture<CachedImage> existing = inFlight.putIfAbsent(cardId, mine);
+        if (existing != null)
+            return existing;
+        try {
+            fetchers.execute(() -> {
+                try {
+                    mine.complete(fetch(cardId));
+                } catch (Throwable t) {
+                    mine.completeExceptionally(t);
+                } finally {
+                    inFlight.remove(cardId, mine);
+                }
+            });
+        } catch (RuntimeException e) { // executor shut down
+            inFlight.remove(cardId, mine);
+            mine.completeExceptionally(e);
+        }
+        return mine;
+    }
+
+    private CachedImage fetch(String cardId) throws IOException, InterruptedException {
+        URI uri = URI.create(originUrl(cardId));
+        HttpRequest req = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(10))
+                .header("User-Agent", "StackAndTrack/1.0")
+                .GET()
+                .build();
+
+        HttpResponse<InputStream> res = http.send(req, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = res.body()) {
+            if (res.statusCode() == 404) {
+                rememberMissing(cardId);
+                throw new NotFoundException("No image for " + cardId);
+            }
+            if (res.statusCode() < 200 || res.statusCode() >= 300)
+                throw new IOException("Image origin error " + res.statusCode() + " for " + cardId);
+
+            // stream to a temp file, hashing on the way, then publish atomically
+            Path tmp = Files.createTempFile(dir, cardId + "-", ".part");
+            try {
+                MessageDigest md = sha256();
+                try (DigestInputStream in = new DigestInputStream(body, md)) {
+                    Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+                }
+                return publish(cardId, tmp, hex(md));
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    private static final String POKEMONTCG_IMAGES = "https://images.pokemontcg.io/";
+
+    // prefer the catalog's own path; otherwise derive it from "<setId>-<number>"
+    String originUrl(String cardId) throws NotFoundException {
+        CardItem c = catalog.findByIds(List.of(cardId)).get(cardId);
+        if (c != null && c.imageSmall != null && c.imageSmall.startsWith(POKEMONTCG_IMAGES))
+            return originBase + "/" + c.imageSmall.substring(POKEMONTCG_IMAGES.length());
+        int dash = cardId.lastIndexOf('-');
+        if (dash <= 0 || dash == cardId.length() - 1) {
+            rememberMissing(cardId);
+            throw new NotFoundException("Cannot derive image URL for " + cardId);
+        }
+        return originBase + "/" + cardId.substring(0, dash) + "/" + cardId.substring(dash + 1) + ".png";
+    }
+
+    private Path fileFor(String cardId) {
+        return dir.resolve(cardId + ".png");
+    }
+
+    // Moves the download into place and registers it in one step under the
+    // lock, so a pending eviction of the same path can't delete the new file.
+    private CachedImage publish(String cardId, Path tmp, String etag) throws IOException {
+        Path target = fileFor(cardId);
+        synchronized (lru) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            CachedImage img = new CachedImage(target, Files.size(target), etag);
+            CachedImage old = lru.put(cardId, img);
+            if (old != null)
+                totalBytes -= old.size();
+            totalBytes += img.size();
+            long now = System.currentTimeMillis();
+            Iterator<Map.Entry<String, CachedImage>> it = lru.entrySet().iterator();
+            while (totalBytes > maxBytes && it.hasNext()) {
+                var eldest = it.next();
+                if (eldest.getKey().equals(cardId))
+                    continue; // never evict what we just fetched
+                totalBytes -= eldest.getValue().size();
+                evicted.remove(eldest.getValue().path()); // keep the map in eviction order
+                evicted.put(eldest.getValue().path(), now);
+                it.remove();
+            }
+            deleteEvicted(now);
+            return img;
+        }
+    }
+
+    // guarded by lru: past the grace period, and not the file of a live entry again
+    private void deleteEvicted(long now) throws IOException {
+        Iterator<Map.Entry<Path, Long>> it = evicted.entrySet().iterator();
+        while (it.hasNext()) {
+            var e = it.next();
+            if (now - e.getValue() < deleteGraceMs)
+                break; // insertion order: the rest are younger
+            it.remove();
+            if (!isLive(e.getKey()))
+                Files.deleteIfExists(e.getKey());
+        }
+    }
+
+    // containsKey, not get: a lookup would count as a use in the LRU order
+    private boolean isLive(Path p) {
+        String name = p.getFileName().toString();
+        return lru.containsKey(name.substring(0, name.length() - ".png".length()));
+    }
+
+    private void loadExisting() throws IOException {
+        List<Path> images = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) {
+                String name = p.getFileName().toString();
+                if (name.endsWith(".part"))
+                    Files.deleteIfExists(p); // interrupted download
+                else if (name.endsWith(".png"))
+                    images.add(p);
+            }
+        }
+        images.sort(Comparator.comparingLong(p -> p.toFile().lastModified()));
+        for (Path p : images) {
+            String name = p.getFileName().toString();
+            long size = p.toFile().length();
+            lru.put(name.substring(0, name.length() - ".png".length()), new CachedImage(p, size, null));
+            totalBytes += size;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(MessageDigest md) {
+        return HexFormat.of().formatHex(md.digest(), 0, 16);
+    }
+
+    private static String sha256(InputStream in) throws IOException {
+        MessageDigest md = sha256();
+        try (DigestInputStream din = new DigestInputStream(in, md)) {
+            din.transferTo(OutputStream.nullOutputStream());
+        }
+        return hex(md);
+    }
+}
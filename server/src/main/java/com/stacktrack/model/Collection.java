@@ -1,10 +1,15 @@
 package com.stacktrack.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import java.time.Instant;
 
 @Entity
-@Table(name = "collections")
+@Table(name = "collections", indexes = @Index(name = "ix_collections_uid_created", columnList = "uid, createdAt"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Collection {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,103 @@
+package com.stacktrack.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+// One card in a collection. Sequence ids (not IDENTITY) so inserts can be JDBC-batched;
+// not in the second-level cache, since items are read as keyset pages, not by id.
+@Entity
+@Table(name = "collection_items", indexes = @Index(name = "ix_items_collection_added", columnList = "collectionId, addedAt"))
+public class CollectionCard {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "collection_items_seq")
+    @SequenceGenerator(name = "collection_items_seq", sequenceName = "collection_items_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long collectionId;
+    @Column(nullable = false)
+    private String cardId; // e.g., "base1-4"
+    private String name;
+    private String setName;
+    private String imageSmall;
+    private Double priceUSD;
+    private String priceUpdatedAt;
+    @Column(nullable = false)
+    private Instant addedAt;
+
+    @PrePersist
+    void onCreate() {
+        if (addedAt == null)
+            addedAt = Instant.now();
+    }
+
+    // getters/setters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getCollectionId() {
+        return collectionId;
+    }
+
+    public void setCollectionId(Long collectionId) {
+        this.collectionId = collectionId;
+    }
+
+    public String getCardId() {
+        return cardId;
+    }
+
+    public void setCardId(String cardId) {
+        this.cardId = cardId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getSetName() {
+        return setName;
+    }
+
+    public void setSetName(String setName) {
+        this.setName = setName;
+    }
+
+    public String getImageSmall() {
+        return imageSmall;
+    }
+
+    public void setImageSmall(String imageSmall) {
+        this.imageSmall = imageSmall;
+    }
+
+    public Double getPriceUSD() {
+        return priceUSD;
+    }
+
+    public void setPriceUSD(Double priceUSD) {
+        this.priceUSD = priceUSD;
+    }
+
+    public String getPriceUpdatedAt() {
+        return priceUpdatedAt;
+    }
+
+    public void setPriceUpdatedAt(String priceUpdatedAt) {
+        this.priceUpdatedAt = priceUpdatedAt;
+    }
+
+    public Instant getAddedAt() {
+        return addedAt;
+    }
+
+    public void setAddedAt(Instant addedAt) {
+        this.addedAt = addedAt;
+    }
+}
@@ -15,6 +15,8 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 public class PokemonTcgService {
@@ -45,7 +47,37 @@ public class PokemonTcgService {
                 .build();
     }
 
+    public boolean isEnabled() {
+        return apiKey != null && !apiKey.isBlank();
+    }
+
     public List<SearchItem> search(String q, int limit) throws IOException, InterruptedException {
+        HttpResponse<String> res = http.send(request(q, limit, Duration.ofSeconds(10)),
+                HttpResponse.BodyHandlers.ofString());
+        return parse(res);
+    }
+
+    /**
+     * Non-blocking {@link #search}: no thread is held while the upstream is
+     * slow. {@code timeout} bounds the whole exchange.
+     */
+    public CompletableFuture<List<SearchItem>> searchAsync(String q, int limit, Duration timeout) {
+        HttpRequest req;
+        try {
+            req = request(q, limit, timeout);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return http.sendAsync(req, HttpResponse.BodyHandlers.ofString()).thenApply(res -> {
+            try {
+                return parse(res);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private HttpRequest request(String q, int limit, Duration timeout) {
         if (apiKey == null || apiKey.isBlank()) {
             throw new IllegalStateException("POKEMONTCG_API_KEY is not set on the server");
         }
@@ -60,17 +92,17 @@ public class PokemonTcgService {
         // Debug log to see outbound requests in your console
         System.out.println("[PokemonTcgService] GET " + uri);
 
-        HttpRequest req = HttpRequest.newBuilder(uri)
-                .timeout(Duration.ofSeconds(10)) // per-request timeout
+        return HttpRequest.newBuilder(uri)
+                .timeout(timeout) // per-request timeout
                 .header("X-Api-Key", apiKey)
                 .header("User-Agent", "StackAndTrack/1.0")
                 .header("Accept", "application/json")
                 .header("Accept-Encoding", "identity") // avoid h2/gzip weirdness
                 .GET()
                 .build();
+    }
 
-        HttpResponse<String> res = http.send(req, HttpResponse.BodyHandlers.ofString());
-
+    private List<SearchItem> parse(HttpResponse<String> res) throws IOException {
         System.out.println("[PokemonTcgService] status=" + res.statusCode());
 
         if (res.statusCode() < 200 || res.statusCode() >= 300) {
@@ -0,0 +1,32 @@
+package com.stacktrack.repo;
+
+import com.stacktrack.model.CollectionCard;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface CollectionCardRepository extends JpaRepository<CollectionCard, Long> {
+
+    // keyset pagination over (addedAt desc, id desc), backed by (collectionId, addedAt)
+    @Query("select c from CollectionCard c where c.collectionId = :cid order by c.addedAt desc, c.id desc")
+    List<CollectionCard> firstPage(@Param("cid") Long collectionId, Limit limit);
+
+    @Query("select c from CollectionCard c where c.collectionId = :cid"
+            + " and (c.addedAt < :addedAt or (c.addedAt = :addedAt and c.id < :id))"
+            + " order by c.addedAt desc, c.id desc")
+    List<CollectionCard> pageAfter(@Param("cid") Long collectionId, @Param("addedAt") Instant addedAt,
+            @Param("id") Long id, Limit limit);
+
+    @Modifying
+    @Query("delete from CollectionCard c where c.collectionId = :cid")
+    int deleteByCollection(@Param("cid") Long collectionId);
+
+    // {cardId, count} rows
+    @Query("select c.cardId, count(c) from CollectionCard c group by c.cardId")
+    List<Object[]> countByCard();
+}
@@ -1,9 +1,19 @@
 package com.stacktrack.repo;
 
 import com.stacktrack.model.Collection;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
 import java.util.List;
+import java.util.Optional;
 
 public interface CollectionRepository extends JpaRepository<Collection, Long> {
     List<Collection> findByUidOrderByCreatedAtDesc(String uid);
+
+    // ownership check on every item operation, so served from the query cache
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    Optional<Collection> findByIdAndUid(Long id, String uid);
+
+    List<Collection> findByUidAndIdIn(String uid, List<Long> ids);
 }
@@ -27,7 +27,7 @@ public class FirebaseConfig {
 
   @Bean
   public Firestore firestore() {
-    // This is what gets injected into CollectionsFsService
+    // This is what gets injected into CollectionsFsService (the default CollectionStore)
     return FirestoreClient.getFirestore();
   }
 }
@@ -4,33 +4,178 @@ import com.google.firebase.auth.FirebaseToken;
 import com.google.firebase.cloud.FirestoreClient;
 import com.google.cloud.firestore.DocumentReference;
 import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.WriteBatch;
 import com.google.cloud.Timestamp;
 import com.google.cloud.firestore.Firestore;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Keeps users/{uid} in sync with the token's email/name without touching
+ * Firestore on the request path. Unchanged profiles are skipped; changes are
+ * coalesced per uid and flushed in batches by a background writer, at most
+ * once per uid per flush interval, retrying failed writes on the next tick.
+ * What was written is remembered for a while (bounded), so a user that comes
+ * back after that costs one redundant write.
+ */
 @Service
 public class UserProfileService {
 
+    private static final int MAX_BATCH = 500; // Firestore batch limit
+    static final int MAX_REMEMBERED = 100_000;
+
+    record Profile(String email, String name) {
+    }
+
+    private record Written(Profile profile, long at) {
+    }
+
+    private final long intervalMs;
+    private final long rememberMs;
+    // what Firestore is known to hold (as of our last successful write), and when;
+    // set only inside pending.compute for the same uid (forgetOld may drop entries)
+    private final Map<String, Written> written = new ConcurrentHashMap<>();
+    // latest wanted state per uid, not yet written
+    private final Map<String, Profile> pending = new ConcurrentHashMap<>();
+    // uids whose pending profile is being committed right now
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "profile-sync");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public UserProfileService(@Value("${users.profile.flushIntervalMs:5000}") long intervalMs,
+            @Value("${users.profile.rememberMs:3600000}") long rememberMs) {
+        this.intervalMs = intervalMs;
+        this.rememberMs = Math.max(rememberMs, intervalMs);
+        flusher.scheduleWithFixedDelay(this::flushSafely, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
     private Firestore db() {
 
         return FirestoreClient.getFirestore();
     }
 
-    public void ensureProfile(FirebaseToken tok) throws Exception {
-        String uid = tok.getUid();
+    /** Records the caller's profile; never blocks on Firestore. */
+    public void ensureProfile(FirebaseToken tok) {
+        ensureProfile(tok.getUid(), new Profile(tok.getEmail(), tok.getName()));
+    }
 
-        Map<String, Object> data = new HashMap<>();
-        if (tok.getEmail() != null)
-            data.put("email", tok.getEmail());
-        if (tok.getName() != null)
-            data.put("name", tok.getName());
-        data.put("updatedAt", Timestamp.now());
+    void ensureProfile(String uid, Profile p) {
+        // read-only fast path for the usual case: nothing queued, already written
+        if (p.equals(pending.get(uid)))
+            return;
+        Written w = written.get(uid);
+        if (w != null && p.equals(w.profile()) && !pending.containsKey(uid))
+            return;
 
-        DocumentReference ref = db().collection("users").document(uid);
+        // decided under the uid's lock, against the same written the flush updates
+        pending.compute(uid, (k, queued) -> {
+            Written now = written.get(uid);
+            // changed back before the flush: nothing to write, unless the
+            // change is already on its way to Firestore
+            if (now != null && p.equals(now.profile()) && !inFlight.contains(uid))
+                return null;
+            return p;
+        });
+    }
 
-        ref.set(data, SetOptions.merge()).get();
+    @PreDestroy
+    void shutdown() {
+        flusher.shutdown();
+        flush(true); // don't lose queued changes on redeploy
+    }
+
+    private void flushSafely() {
+        try {
+            flush(false);
+        } catch (Exception e) {
+            System.out.println("[UserProfileService] flush failed: " + e.getMessage());
+        }
+    }
+
+    void flush(boolean ignoreInterval) {
+        long now = System.currentTimeMillis();
+        List<String> due = new ArrayList<>();
+        for (String uid : pending.keySet()) {
+            Written last = written.get(uid);
+            if (ignoreInterval || last == null || now - last.at() >= intervalMs)
+                due.add(uid);
+        }
+
+        for (int i = 0; i < due.size(); i += MAX_BATCH) {
+            // take what is pending now, marking it in flight under the uid's lock
+            List<Map.Entry<String, Profile>> chunk = new ArrayList<>();
+            for (String uid : due.subList(i, Math.min(i + MAX_BATCH, due.size()))) {
+                pending.computeIfPresent(uid, (k, p) -> {
+                    inFlight.add(k);
+                    chunk.add(Map.entry(k, p));
+                    return p;
+                });
+            }
+            if (chunk.isEmpty())
+                continue;
+            try {
+                write(chunk);
+            } catch (Exception ex) {
+                // leave these in pending; the next tick retries them
+                chunk.forEach(e -> inFlight.remove(e.getKey()));
+                System.out.println("[UserProfileService] batch of " + chunk.size() + " failed: " + ex.getMessage());
+                continue;
+            }
+            for (var e : chunk) {
+                Written w = new Written(e.getValue(), now);
+                pending.compute(e.getKey(), (k, queued) -> {
+                    written.put(k, w);
+                    inFlight.remove(k);
+                    // only clear if nothing newer arrived while we were writing
+                    return e.getValue().equals(queued) ? null : queued;
+                });
+            }
+        }
+        forgetOld(now);
+    }
+
+    // Forgetting only costs a redundant write later, so any entry may go.
+    private void forgetOld(long now) {
+        written.values().removeIf(w -> now - w.at() >= rememberMs);
+        var it = written.keySet().iterator();
+        for (int over = written.size() - MAX_REMEMBERED; over > 0 && it.hasNext(); over--) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    // one Firestore batch; overridden by tests
+    void write(List<Map.Entry<String, Profile>> chunk) throws Exception {
+        Firestore db = db();
+        WriteBatch batch = db.batch();
+        for (var e : chunk) {
+            DocumentReference ref = db.collection("users").document(e.getKey());
+            batch.set(ref, toData(e.getValue()), SetOptions.merge());
+        }
+        batch.commit().get();
+    }
+
+    private static Map<String, Object> toData(Profile p) {
+        Map<String, Object> data = new HashMap<>();
+        if (p.email() != null)
+            data.put("email", p.email());
+        if (p.name() != null)
+            data.put("name", p.name());
+        data.put("updatedAt", Timestamp.now());
+        return data;
     }
 }
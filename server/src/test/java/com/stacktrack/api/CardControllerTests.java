@@ -0,0 +1,47 @@
+package com.stacktrack.api;
+
+import com.stacktrack.catalog.CardCountSource;
+import com.stacktrack.catalog.CardPopularityService;
+import com.stacktrack.catalog.CardPopularityService.PopularCard;
+import com.stacktrack.catalog.SeedCatalogService;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CardControllerTests {
+
+	private final CardPopularityService popularity;
+	private final CardController controller;
+
+	CardControllerTests() throws Exception {
+		Map<String, Long> counts = new HashMap<>();
+		for (int i = 0; i < 300; i++)
+			counts.put("c-" + i, 1L + i);
+		popularity = new CardPopularityService(null, new SeedCatalogService(), 3_600_000, 3_600_000,
+				Optional.<CardCountSource>of(() -> counts));
+		controller = new CardController(popularity);
+	}
+
+	private int popular(int limit) {
+		List<PopularCard> body = controller.popular(limit).getBody();
+		return body == null ? -1 : body.size();
+	}
+
+	@Test
+	void limitIsClampedToOneThroughAHundred() throws Exception {
+		while (popularity.top(1).isEmpty()) // first compaction runs right after construction
+			Thread.sleep(10);
+
+		assertEquals(20, popular(20));
+		assertEquals(1, popular(0));
+		assertEquals(1, popular(-5));
+		assertEquals(100, popular(101));
+		assertEquals(100, popular(Integer.MAX_VALUE));
+		assertEquals("c-299", controller.popular(1).getBody().get(0).cardId());
+	}
+}
@@ -0,0 +1,93 @@
+package com.stacktrack.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.stacktrack.collections.CollectionCardItem;
+import com.stacktrack.collections.InMemoryCollectionStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CollectionControllerTests {
+
+	// what Spring Boot configures: ISO-8601 instants, nulls included
+	private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+			.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+	private final InMemoryCollectionStore store = new InMemoryCollectionStore();
+
+	private String write(String uid, String cid) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		CollectionController.writeItems(store, mapper, uid, cid, out);
+		return out.toString(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	void streamsItemsAsOneJsonArrayNewestFirst() throws Exception {
+		String cid = store.create("u1", "binder").getId();
+		CollectionCardItem first = store.addItem("u1", cid,
+				new CollectionCardItem(null, "base1-4", "Charizard", "Base Set", "https://img/4.png", 350.5,
+						"2026/10/01", null));
+		CollectionCardItem second = store.addItem("u1", cid,
+				new CollectionCardItem(null, "base1-2", "Blastoise", null, null, null, null, null));
+
+		JsonNode arr = mapper.readTree(write("u1", cid));
+
+		assertTrue(arr.isArray());
+		assertEquals(List.of(second.getId(), first.getId()), List.of(arr.get(0).get("id").asText(),
+				arr.get(1).get("id").asText()));
+		JsonNode c = arr.get(1);
+		assertEquals(List.of("id", "cardId", "name", "setName", "imageSmall", "priceUSD", "priceUpdatedAt",
+				"addedAt"), iterableToList(c.fieldNames()));
+		assertEquals("base1-4", c.get("cardId").asText());
+		assertEquals(350.5, c.get("priceUSD").asDouble());
+		assertEquals(first.getAddedAt().toString(), c.get("addedAt").asText());
+		assertTrue(arr.get(0).get("priceUSD").isNull());
+	}
+
+	@Test
+	void unknownCollectionIsAnEmptyArray() throws Exception {
+		assertEquals("[]", write("u1", "nope"));
+	}
+
+	@Test
+	void storeFailureSurfacesAsIOException() {
+		InMemoryCollectionStore broken = new InMemoryCollectionStore() {
+			@Override
+			public void streamItems(String uid, String collectionId, ItemSink sink) throws Exception {
+				throw new IllegalStateException("backend down");
+			}
+		};
+		IOException e = assertThrows(IOException.class,
+				() -> CollectionController.writeItems(broken, mapper, "u1", "c", new ByteArrayOutputStream()));
+		assertEquals("backend down", e.getCause().getMessage());
+	}
+
+	@Test
+	void exportFilenameCannotBreakOutOfTheHeader() {
+		String header = CollectionController.exportDisposition("a\"; filename=\"evil.exe", "csv").toString();
+
+		ContentDisposition parsed = ContentDisposition.parse(header);
+		assertEquals("attachment", parsed.getType());
+		assertEquals("a___filename__evil.exe.csv", parsed.getFilename());
+		assertEquals("attachment; filename=\"c1.ndjson\"",
+				CollectionController.exportDisposition("c1", "ndjson").toString());
+	}
+
+	private static List<String> iterableToList(Iterator<String> it) {
+		List<String> out = new ArrayList<>();
+		it.forEachRemaining(out::add);
+		return out;
+	}
+}
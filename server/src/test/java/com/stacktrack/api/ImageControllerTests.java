@@ -0,0 +1,156 @@
+package com.stacktrack.api;
+
+import com.stacktrack.catalog.SeedCatalogService;
+import com.stacktrack.collections.InMemoryCollectionStore;
+import com.stacktrack.images.ImageCacheService;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ImageControllerTests {
+
+	private static final byte[] PNG = new byte[1000];
+
+	static {
+		for (int i = 0; i < PNG.length; i++)
+			PNG[i] = (byte) i;
+	}
+
+	@TempDir
+	Path dir;
+
+	private HttpServer origin;
+	private ImageController controller;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		origin = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		origin.createContext("/", ex -> {
+			ex.sendResponseHeaders(200, PNG.length);
+			ex.getResponseBody().write(PNG);
+			ex.close();
+		});
+		origin.start();
+		ImageCacheService images = new ImageCacheService(dir.toString(), 1 << 20,
+				"http://127.0.0.1:" + origin.getAddress().getPort(), 0, new SeedCatalogService());
+		controller = new ImageController(images, new InMemoryCollectionStore());
+	}
+
+	@AfterEach
+	void stopOrigin() {
+		origin.stop(0);
+	}
+
+	private MockHttpServletResponse get(String... headers) throws Exception {
+		MockHttpServletRequest req = new MockHttpServletRequest("GET", "/api/images/base1-4");
+		for (int i = 0; i < headers.length; i += 2)
+			req.addHeader(headers[i], headers[i + 1]);
+		MockHttpServletResponse res = new MockHttpServletResponse();
+		controller.image("base1-4", req, res);
+		return res;
+	}
+
+	@Test
+	void parsesSingleRanges() {
+		assertArrayEquals(new long[] { 0, 99 }, ImageController.parseRange("bytes=0-99", 1000));
+		assertArrayEquals(new long[] { 900, 999 }, ImageController.parseRange("bytes=900-", 1000));
+		assertArrayEquals(new long[] { 500, 999 }, ImageController.parseRange("bytes=500-5000", 1000));
+		assertArrayEquals(new long[] { 900, 999 }, ImageController.parseRange("bytes=-100", 1000));
+		assertArrayEquals(new long[] { 0, 999 }, ImageController.parseRange("bytes=-5000", 1000));
+	}
+
+	@Test
+	void unsatisfiableRangesAreEmpty() {
+		assertEquals(0, ImageController.parseRange("bytes=1000-", 1000).length);
+		assertEquals(0, ImageController.parseRange("bytes=5-4", 1000).length);
+		assertEquals(0, ImageController.parseRange("bytes=-0", 1000).length);
+		assertEquals(0, ImageController.parseRange("bytes=-1", 0).length);
+	}
+
+	@Test
+	void malformedOrMultiRangesAreIgnored() {
+		assertNull(ImageController.parseRange("items=0-1", 1000));
+		assertNull(ImageController.parseRange("bytes=0-1,5-6", 1000));
+		assertNull(ImageController.parseRange("bytes=5", 1000));
+		assertNull(ImageController.parseRange("bytes=-", 1000));
+		assertNull(ImageController.parseRange("bytes=a-b", 1000));
+	}
+
+	@Test
+	void servesTheWholeImageWithValidators() throws Exception {
+		MockHttpServletResponse res = get();
+
+		assertEquals(200, res.getStatus());
+		assertArrayEquals(PNG, res.getContentAsByteArray());
+		assertEquals(1000, res.getContentLengthLong());
+		assertEquals("bytes", res.getHeader("Accept-Ranges"));
+		assertEquals("public, max-age=31536000, immutable", res.getHeader("Cache-Control"));
+	}
+
+	@Test
+	void matchingIfNoneMatchIsNotModified() throws Exception {
+		String etag = get().getHeader("ETag");
+
+		MockHttpServletResponse res = get("If-None-Match", "\"other\", " + etag);
+		assertEquals(304, res.getStatus());
+		assertEquals(0, res.getContentAsByteArray().length);
+		assertEquals(304, get("If-None-Match", "*").getStatus());
+		assertEquals(200, get("If-None-Match", "\"other\"").getStatus());
+	}
+
+	@Test
+	void rangeIsPartialContent() throws Exception {
+		MockHttpServletResponse res = get("Range", "bytes=10-19");
+
+		assertEquals(206, res.getStatus());
+		assertEquals("bytes 10-19/1000", res.getHeader("Content-Range"));
+		assertEquals(10, res.getContentLengthLong());
+		assertArrayEquals(Arrays.copyOfRange(PNG, 10, 20), res.getContentAsByteArray());
+	}
+
+	@Test
+	void ifRangeMustMatchTheCurrentEtag() throws Exception {
+		String etag = get().getHeader("ETag");
+
+		assertEquals(206, get("Range", "bytes=0-9", "If-Range", etag).getStatus());
+
+		MockHttpServletResponse stale = get("Range", "bytes=0-9", "If-Range", "\"stale\"");
+		assertEquals(200, stale.getStatus());
+		assertNull(stale.getHeader("Content-Range"));
+		assertArrayEquals(PNG, stale.getContentAsByteArray());
+	}
+
+	@Test
+	void unsatisfiableRangeIs416() throws Exception {
+		MockHttpServletResponse res = get("Range", "bytes=1000-");
+
+		assertEquals(416, res.getStatus());
+		assertEquals("bytes */1000", res.getHeader("Content-Range"));
+	}
+
+	@Test
+	void sendfileGetsTheFileAndExclusiveEnd() throws Exception {
+		MockHttpServletRequest req = new MockHttpServletRequest("GET", "/api/images/base1-4");
+		req.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		req.addHeader("Range", "bytes=-100");
+		MockHttpServletResponse res = new MockHttpServletResponse();
+		controller.image("base1-4", req, res);
+
+		assertEquals(206, res.getStatus());
+		assertEquals(900L, req.getAttribute("org.apache.tomcat.sendfile.start"));
+		assertEquals(1000L, req.getAttribute("org.apache.tomcat.sendfile.end"));
+		assertEquals(0, res.getContentAsByteArray().length);
+	}
+}
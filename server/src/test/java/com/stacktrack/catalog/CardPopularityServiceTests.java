@@ -0,0 +1,222 @@
+package com.stacktrack.catalog;
+
+import com.google.cloud.NoCredentials;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import com.stacktrack.catalog.CardPopularityService.PopularCard;
+import com.stacktrack.catalog.SeedCatalogService.CardItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CardPopularityServiceTests {
+
+	private static final long NEVER = 3_600_000; // background ticks don't fire during a test
+
+	// never connects: only used to build document references
+	private final Firestore db = FirestoreOptions.newBuilder().setProjectId("demo-stacktrack")
+			.setCredentials(NoCredentials.getInstance()).build().getService();
+	private final SeedCatalogService catalog = new SeedCatalogService(List.of(
+			new CardItem("a", "Charizard", "Base Set", null, "Rare Holo", "4", "base1"),
+			new CardItem("b", "Blastoise", "Base Set", null, "Rare Holo", "2", "base1")));
+
+	// Firestore stand-in: shard counts by card, and what each method was asked for
+	private final Map<String, Long> shards = new HashMap<>();
+	private final List<List<String>> shardReads = new CopyOnWriteArrayList<>();
+	private final List<List<Map.Entry<String, Long>>> commits = new CopyOnWriteArrayList<>();
+	private volatile int scans;
+	private volatile int readFailuresLeft;
+
+	private final List<CardPopularityService> services = new ArrayList<>();
+
+	@AfterEach
+	void shutdown() {
+		services.forEach(CardPopularityService::shutdown);
+	}
+
+	private CardPopularityService sharded(long fullScanIntervalMs) throws Exception {
+		CardPopularityService svc = new CardPopularityService(db, catalog, NEVER, fullScanIntervalMs,
+				Optional.empty()) {
+			@Override
+			Map<String, Long> scanAll() {
+				scans++;
+				synchronized (shards) {
+					return new HashMap<>(shards);
+				}
+			}
+
+			@Override
+			Map<String, Long> readShards(List<String> cardIds) throws Exception {
+				shardReads.add(List.copyOf(cardIds));
+				if (readFailuresLeft > 0) {
+					readFailuresLeft--;
+					throw new Exception("unavailable");
+				}
+				Map<String, Long> out = new HashMap<>();
+				synchronized (shards) {
+					cardIds.forEach(id -> out.put(id, shards.getOrDefault(id, 0L)));
+				}
+				return out;
+			}
+
+			@Override
+			void commit(List<Map.Entry<String, Long>> chunk) {
+				commits.add(List.copyOf(chunk));
+			}
+		};
+		services.add(svc);
+		svc.compactNow().get(); // after the constructor's first run: a full scan
+		return svc;
+	}
+
+	private CardPopularityService counted(Map<String, Long> counts) throws Exception {
+		CardPopularityService svc = new CardPopularityService(null, catalog, NEVER, NEVER,
+				Optional.of(() -> counts));
+		services.add(svc);
+		svc.compactNow().get();
+		return svc;
+	}
+
+	private void setShards(Map<String, Long> counts) {
+		synchronized (shards) {
+			shards.putAll(counts);
+		}
+	}
+
+	private static List<String> ids(List<PopularCard> cards) {
+		return cards.stream().map(PopularCard::cardId).toList();
+	}
+
+	@Test
+	void topIsMostCollectedFirstWithTiesById() throws Exception {
+		CardPopularityService svc = counted(Map.of("b", 5L, "a", 5L, "c", 9L, "zero", 0L, "neg", -2L));
+
+		List<PopularCard> top = svc.top(10);
+		assertEquals(List.of("c", "a", "b"), ids(top)); // counts <= 0 are left out
+		assertEquals(List.of(9L, 5L, 5L), top.stream().map(PopularCard::count).toList());
+		assertEquals("Charizard", top.get(1).card().name);
+		assertNull(top.get(0).card()); // not in the catalog
+		assertEquals(List.of("c"), ids(svc.top(1)));
+		assertEquals(List.of(), svc.top(-1));
+	}
+
+	@Test
+	void keepsOnlyTopKAndCutsTiesById() throws Exception {
+		Map<String, Long> counts = new HashMap<>();
+		for (int i = 0; i < CardPopularityService.TOP_K * 3; i++)
+			counts.put(String.format("t-%03d", i), 1L); // all tied
+		counts.put("hot", 2L);
+		CardPopularityService svc = counted(counts);
+
+		List<PopularCard> top = svc.top(Integer.MAX_VALUE);
+		assertEquals(CardPopularityService.TOP_K, top.size());
+		assertEquals("hot", top.get(0).cardId());
+		assertEquals("t-000", top.get(1).cardId());
+		assertEquals(String.format("t-%03d", CardPopularityService.TOP_K - 2), top.get(top.size() - 1).cardId());
+	}
+
+	@Test
+	void compactionRereadsOnlyChangedCards() throws Exception {
+		setShards(Map.of("a", 3L, "b", 1L));
+		CardPopularityService svc = sharded(NEVER);
+		assertEquals(1, scans);
+		assertEquals(List.of("a", "b"), ids(svc.top(10)));
+
+		svc.compactNow().get(); // nothing changed: no reads at all
+		assertEquals(List.of(), shardReads);
+
+		setShards(Map.of("b", 7L));
+		svc.changed("b");
+		svc.compactNow().get();
+		assertEquals(List.of(List.of("b")), shardReads);
+		assertEquals(List.of("b", "a"), ids(svc.top(10)));
+		assertEquals(1, scans);
+	}
+
+	@Test
+	void failedReadPutsCardsBackForTheNextTick() throws Exception {
+		CardPopularityService svc = sharded(NEVER);
+		setShards(Map.of("a", 4L));
+		svc.changed("a");
+		readFailuresLeft = 1;
+
+		ExecutionException e = assertThrows(ExecutionException.class, () -> svc.compactNow().get());
+		assertEquals("unavailable", e.getCause().getMessage());
+		assertEquals(List.of(), svc.top(10));
+
+		svc.compactNow().get();
+		assertEquals(List.of(List.of("a"), List.of("a")), shardReads);
+		assertEquals(List.of("a"), ids(svc.top(10)));
+	}
+
+	@Test
+	void fullScanRunsAgainAfterTheInterval() throws Exception {
+		CardPopularityService svc = sharded(500);
+		setShards(Map.of("a", 2L)); // bumped on another node: never reported here
+		svc.compactNow().get();
+		assertEquals(1, scans);
+		assertEquals(List.of(), svc.top(10));
+
+		Thread.sleep(600);
+		svc.changed("b"); // the scan covers it; no separate read
+		svc.compactNow().get();
+		assertEquals(2, scans);
+		assertEquals(List.of(), shardReads);
+		assertEquals(List.of("a"), ids(svc.top(10)));
+	}
+
+	@Test
+	void addCommitsInBatchesOfFiveHundredAndMarksCardsChanged() throws Exception {
+		CardPopularityService svc = sharded(NEVER);
+		Map<String, Long> byCard = new HashMap<>();
+		for (int i = 0; i < CardPopularityService.MAX_BATCH * 2 + 1; i++)
+			byCard.put("c-" + i, 1L);
+
+		svc.add(byCard);
+		assertEquals(List.of(500, 500, 1), commits.stream().map(List::size).toList());
+
+		svc.compactNow().get();
+		assertEquals(byCard.size(), shardReads.get(0).size());
+	}
+
+	@Test
+	void readShardsSumsEachCardsShards() throws Exception {
+		CardPopularityService svc = new CardPopularityService(db, catalog, NEVER, NEVER, Optional.of(Map::of)) {
+			@Override
+			Map<DocumentReference, Long> readCounts(List<DocumentReference> refs) {
+				// shard n of each card holds n + 1, except card "b" which has none yet
+				Map<DocumentReference, Long> out = new HashMap<>();
+				for (DocumentReference ref : refs) {
+					if (!ref.getPath().startsWith("cardStats/b/"))
+						out.put(ref, Long.parseLong(ref.getId()) + 1);
+				}
+				return out;
+			}
+		};
+		services.add(svc);
+
+		List<String> cards = new ArrayList<>();
+		for (int i = 0; i < 120; i++) // more than one getAll chunk
+			cards.add("x-" + i);
+		cards.add("b");
+		Map<String, Long> sums = svc.readShards(cards);
+
+		long perCard = CardPopularityService.SHARDS * (CardPopularityService.SHARDS + 1) / 2;
+		assertEquals(cards.size(), sums.size());
+		assertEquals(perCard, sums.get("x-0"));
+		assertEquals(perCard, sums.get("x-119"));
+		assertEquals(0L, sums.get("b"));
+	}
+}
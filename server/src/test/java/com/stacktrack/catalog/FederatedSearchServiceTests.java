@@ -0,0 +1,136 @@
+package com.stacktrack.catalog;
+
+import com.stacktrack.catalog.FederatedSearchService.FederatedItem;
+import com.stacktrack.catalog.FederatedSearchService.FederatedResult;
+import com.stacktrack.catalog.SeedCatalogService.CardItem;
+import com.stacktrack.pokemon.PokemonTcgService;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FederatedSearchServiceTests {
+
+	private static final String CARDS = """
+			{"data":[
+			 {"id":"base1-4","name":"Charizard","set":{"name":"Base"},"images":{"small":"s4"},
+			  "tcgplayer":{"updatedAt":"2026/10/01","prices":{"holofoil":{"market":350.5}}}},
+			 {"id":"base1-4","name":"Charizard","set":{"name":"Base"}},
+			 {"id":"sv3-125","name":"Charizard ex","set":{"name":"Obsidian Flames"},"images":{"small":"s125"},
+			  "tcgplayer":{"prices":{"normal":{"market":12.0}}}}
+			]}""";
+
+	private HttpServer upstream;
+	private volatile String mode = "fast";
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final CountDownLatch answered = new CountDownLatch(1);
+
+	// local stand-in for the PokémonTCG.io API: /cards -> CARDS
+	@BeforeEach
+	void startUpstream() throws Exception {
+		upstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		upstream.setExecutor(Executors.newCachedThreadPool());
+		upstream.createContext("/cards", ex -> {
+			if (mode.equals("slow")) {
+				try {
+					release.await();
+				} catch (InterruptedException ignored) {
+				}
+			}
+			byte[] body = (mode.equals("error") ? "{}" : CARDS).getBytes(StandardCharsets.UTF_8);
+			ex.getResponseHeaders().add("Content-Type", "application/json");
+			ex.sendResponseHeaders(mode.equals("error") ? 500 : 200, body.length);
+			ex.getResponseBody().write(body);
+			ex.close();
+			answered.countDown();
+		});
+		upstream.start();
+	}
+
+	@AfterEach
+	void stopUpstream() {
+		release.countDown();
+		upstream.stop(0);
+	}
+
+	private FederatedSearchService service(String apiKey, long budgetMs) {
+		SeedCatalogService catalog = new SeedCatalogService(List.of(
+				new CardItem("base1-4", "Charizard", "Base", "img4", "Rare Holo", "4", "base1"),
+				new CardItem("base1-2", "Blastoise", "Base", "img2", "Rare Holo", "2", "base1")));
+		PokemonTcgService tcg = new PokemonTcgService(apiKey, "http://127.0.0.1:" + upstream.getAddress().getPort());
+		return new FederatedSearchService(catalog, tcg, budgetMs, 5000);
+	}
+
+	@Test
+	void mergesUpstreamPricesAndCardsByIdWhenInTime() {
+		FederatedResult r = service("key", 2000).search("charizard", 10, 2);
+
+		assertFalse(r.partial());
+		assertEquals("ok", r.upstream());
+		assertEquals(List.of("base1-4", "sv3-125"), r.items().stream().map(FederatedItem::id).toList());
+		FederatedItem local = r.items().get(0);
+		assertEquals("both", local.source());
+		assertEquals("Rare Holo", local.rarity());
+		assertEquals(350.5, local.priceUSD());
+		assertEquals("upstream", r.items().get(1).source());
+		assertEquals(12.0, r.items().get(1).priceUSD());
+	}
+
+	@Test
+	void slowUpstreamReturnsLocalWithinBudgetThenWarmsPrices() throws Exception {
+		mode = "slow";
+		FederatedSearchService svc = service("key", 100);
+
+		FederatedResult r = svc.search("charizard", 10, 2);
+		assertTrue(r.partial());
+		assertEquals("timeout", r.upstream());
+		assertTrue(r.tookMs() < 1000, "took " + r.tookMs() + " ms");
+		assertEquals(List.of("base1-4"), r.items().stream().map(FederatedItem::id).toList());
+		assertNull(r.items().get(0).priceUSD());
+
+		// the late answer still lands in the price cache
+		release.countDown();
+		assertTrue(answered.await(5, TimeUnit.SECONDS));
+		mode = "error";
+		FederatedResult next = svc.search("charizard", 10, 2);
+		for (int i = 0; i < 50 && next.items().get(0).priceUSD() == null; i++) {
+			Thread.sleep(100); // response parsed after the stand-in closes the exchange
+			next = svc.search("charizard", 10, 2);
+		}
+		assertTrue(next.partial());
+		assertEquals(350.5, next.items().get(0).priceUSD());
+	}
+
+	@Test
+	void upstreamFailuresAndMissingKeyFallBackToLocal() {
+		mode = "error";
+		FederatedResult failed = service("key", 2000).search("charizard", 10, 2);
+		assertTrue(failed.partial());
+		assertEquals("error", failed.upstream());
+		assertEquals(List.of("base1-4"), failed.items().stream().map(FederatedItem::id).toList());
+
+		FederatedResult disabled = service("", 2000).search("blastoise", 10, 2);
+		assertTrue(disabled.partial());
+		assertEquals("disabled", disabled.upstream());
+		assertEquals("base1-2", disabled.items().get(0).id());
+	}
+
+	@Test
+	void buildsNamePrefixQueries() {
+		assertEquals("name:charizard*", FederatedSearchService.upstreamQuery("Charizard"));
+		assertEquals("name:mr* name:mime*", FederatedSearchService.upstreamQuery(" Mr. \"Mime\" "));
+		assertNull(FederatedSearchService.upstreamQuery("  "));
+	}
+}
@@ -0,0 +1,98 @@
+package com.stacktrack.catalog;
+
+import com.stacktrack.catalog.SeedCatalogService.CardItem;
+import com.stacktrack.catalog.SeedCatalogService.FacetedResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeedCatalogServiceFacetTests {
+
+	private static final List<CardItem> CARDS = List.of(
+			new CardItem("a", "Charizard", "Base Set", null, "Rare Holo", "4", "base1"),
+			new CardItem("b", "Blastoise", "Base Set", null, "Rare Holo", "2", "base1"),
+			new CardItem("c", "Pikachu", "Base Set", null, "Common", "58", "base1"),
+			new CardItem("d", "Pikachu", "Jungle", null, "Common", "60", "base2"),
+			new CardItem("e", "Snorlax", "Jungle", null, "Rare Holo", "11", "base2"),
+			new CardItem("f", "Charmander", "Base Set", null, null, "46", "base1")); // no rarity
+
+	private final SeedCatalogService svc = new SeedCatalogService(CARDS);
+
+	private static List<String> ids(FacetedResult r) {
+		return r.items().stream().map(c -> c.id).toList();
+	}
+
+	@Test
+	void valuesWithinAFacetAreOred() {
+		FacetedResult r = svc.searchFaceted("", Map.of("rarity", List.of("Rare Holo", " common ")), 50);
+		assertEquals(List.of("a", "b", "c", "d", "e"), ids(r));
+		assertEquals(5, r.total());
+	}
+
+	@Test
+	void facetsAreAnded() {
+		FacetedResult r = svc.searchFaceted("", Map.of("setId", List.of("base2"), "rarity", List.of("Common")), 50);
+		assertEquals(List.of("d"), ids(r));
+	}
+
+	@Test
+	void unknownValuesMatchNothing() {
+		FacetedResult none = svc.searchFaceted("", Map.of("rarity", List.of("Secret Rare")), 50);
+		assertEquals(List.of(), ids(none));
+		assertEquals(0, none.total());
+		assertTrue(none.facets().values().stream().allMatch(Map::isEmpty), none.facets().toString());
+
+		// alongside a known value it just adds nothing
+		assertEquals(List.of("c", "d"),
+				ids(svc.searchFaceted("", Map.of("rarity", List.of("Secret Rare", "Common")), 50)));
+	}
+
+	@Test
+	void unknownFacetsAndEmptyFiltersDontRestrict() {
+		assertEquals(6, svc.searchFaceted("", Map.of("color", List.of("red")), 50).total());
+		assertEquals(6, svc.searchFaceted("", Map.of("rarity", List.of()), 50).total());
+		assertEquals(6, svc.searchFaceted(null, null, 50).total());
+	}
+
+	@Test
+	void textMatchIsIntersectedWithTheFilters() {
+		assertEquals(List.of("c"), ids(svc.searchFaceted("pika", Map.of("setId", List.of("base1")), 50)));
+		// Charmander matches "char" but has no rarity
+		assertEquals(List.of("a"), ids(svc.searchFaceted("char", Map.of("rarity", List.of("rare holo")), 50)));
+		assertEquals(List.of(), ids(svc.searchFaceted("snorlax", Map.of("setId", List.of("base1")), 50)));
+	}
+
+	@Test
+	void totalAndCountsDescribeTheWholeMatchSetNotThePage() {
+		FacetedResult r = svc.searchFaceted("", Map.of("setId", List.of("BASE1")), 2);
+
+		assertEquals(2, r.items().size());
+		assertEquals(4, r.total());
+		assertEquals(List.of("setId", "setName", "rarity", "number"), List.copyOf(r.facets().keySet()));
+		assertEquals(Map.of("base1", 4), r.facets().get("setId"));
+		assertEquals(Map.of("Base Set", 4), r.facets().get("setName"));
+		assertEquals(Map.of("Rare Holo", 2, "Common", 1), r.facets().get("rarity")); // zero counts left out
+		assertEquals(4, r.facets().get("number").size());
+	}
+
+	@Test
+	void indexRestrictsInPlaceAndCountsOnlyMatches() {
+		CatalogFacetIndex index = new CatalogFacetIndex(CARDS);
+		BitSet acc = index.all();
+		assertEquals(6, acc.cardinality());
+
+		index.restrict(acc, "setName", List.of("jungle"));
+		assertEquals(BitSet.valueOf(new long[] { 0b011000 }), acc);
+		index.restrict(acc, "rarity", null); // no values: unchanged
+		assertEquals(2, acc.cardinality());
+
+		Map<String, Map<String, Integer>> counts = index.counts(acc);
+		assertEquals(Map.of("Common", 1, "Rare Holo", 1), counts.get("rarity"));
+		assertEquals(Map.of("Jungle", 2), counts.get("setName")); // label as first seen, not normalized
+	}
+}
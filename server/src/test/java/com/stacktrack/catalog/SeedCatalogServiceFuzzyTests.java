@@ -0,0 +1,110 @@
+package com.stacktrack.catalog;
+
+import com.stacktrack.catalog.SeedCatalogService.CardItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SeedCatalogServiceFuzzyTests {
+
+	@Test
+	void findsSeedCardsDespiteTypos() {
+		SeedCatalogService svc = new SeedCatalogService();
+
+		assertTrue(svc.search("charzard", 10).isEmpty());
+		List<CardItem> hits = svc.fuzzySearch("charzard", 10, 2);
+		assertFalse(hits.isEmpty());
+		assertEquals("Charizard", hits.get(0).name);
+
+		assertEquals("Blastoise", svc.fuzzySearch("blastois", 10, 1).get(0).name);
+	}
+
+	@Test
+	void ranksCloserMatchesFirst() {
+		SeedCatalogService svc = new SeedCatalogService(List.of(
+				card("a", "Pikachy"), // distance 1 from "pikachu"
+				card("b", "Pikachu"),
+				card("c", "Raichu")));
+
+		List<CardItem> hits = svc.fuzzySearch("pikachu", 10, 2);
+		assertEquals(List.of("b", "a"), hits.stream().map(c -> c.id).toList());
+		assertTrue(svc.fuzzySearch("pikachu", 10, 0).stream().allMatch(c -> c.id.equals("b")));
+	}
+
+	@Test
+	void popularityRanksWithinEqualDistance() {
+		SeedCatalogService svc = new SeedCatalogService(List.of(
+				card("a", "Pikachu"),
+				card("b", "Pikachu V"),
+				card("c", "Pikachy")));
+		svc.applyPopularity(java.util.Map.of("b", 5L, "c", 50L));
+
+		// distance still wins; popularity orders the exact matches
+		assertEquals(List.of("b", "a", "c"), svc.fuzzySearch("pikachu", 10, 1).stream().map(c -> c.id).toList());
+		assertEquals(List.of("c", "b", "a"), svc.search("pika", 10).stream().map(c -> c.id).toList());
+	}
+
+	/**
+	 * 100k-card catalog (a few thousand distinct names, like the real one):
+	 * fuzzy lookups must stay within a small constant factor of exact search.
+	 * Wall-clock timing depends on the machine, so it only runs on request:
+	 * mvn test -Dbenchmarks=true
+	 */
+	@Test
+	void fuzzyStaysCloseToExactLatencyOn100kCards() {
+		assumeTrue(Boolean.getBoolean("benchmarks"), "benchmarks not requested (-Dbenchmarks=true)");
+		Random rnd = new Random(42);
+		String[] syllables = { "char", "iz", "ard", "blas", "toise", "pi", "ka", "chu", "mew", "two", "sau", "ven",
+				"gen", "gar", "dra", "gon", "ite", "lu", "gia", "ray", "quaz", "bul", "ba", "zor" };
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < 3000; i++) {
+			StringBuilder sb = new StringBuilder();
+			int parts = 2 + rnd.nextInt(3);
+			for (int p = 0; p < parts; p++)
+				sb.append(syllables[rnd.nextInt(syllables.length)]);
+			sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+			names.add(sb.toString());
+		}
+		String[] suffixes = { "", " ex", " V", " GX", " VMAX" };
+		List<CardItem> cards = new ArrayList<>(100_000);
+		for (int i = 0; i < 100_000; i++) {
+			cards.add(card("x-" + i, names.get(rnd.nextInt(names.size())) + suffixes[rnd.nextInt(suffixes.length)]));
+		}
+		SeedCatalogService svc = new SeedCatalogService(cards);
+
+		String target = names.get(1234).toLowerCase();
+		String typo = target.substring(0, 2) + target.substring(3); // one deletion
+
+		for (int i = 0; i < 20; i++) { // warm-up
+			svc.search(typo, 10);
+			svc.fuzzySearch(typo, 10, 2);
+		}
+		int rounds = 50;
+		long t0 = System.nanoTime();
+		for (int i = 0; i < rounds; i++)
+			svc.search(typo, 10); // no exact hit: full scan, the case users retry on
+		long exact = System.nanoTime() - t0;
+
+		t0 = System.nanoTime();
+		List<CardItem> hits = List.of();
+		for (int i = 0; i < rounds; i++)
+			hits = svc.fuzzySearch(typo, 10, 2);
+		long fuzzy = System.nanoTime() - t0;
+
+		System.out.printf("[bench] 100k cards, %d queries: exact=%.2fms/q fuzzy=%.2fms/q%n",
+				rounds, exact / 1e6 / rounds, fuzzy / 1e6 / rounds);
+		assertFalse(hits.isEmpty());
+		assertTrue(fuzzy <= exact * 3, "fuzzy search should stay within 3x of exact search latency");
+	}
+
+	private static CardItem card(String id, String name) {
+		return new CardItem(id, name, "Test Set", null, null, "1", "test");
+	}
+}
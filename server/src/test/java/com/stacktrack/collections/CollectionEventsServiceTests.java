@@ -0,0 +1,180 @@
+package com.stacktrack.collections;
+
+import com.stacktrack.collections.CollectionStore.ItemChange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CollectionEventsServiceTests {
+
+	private final InMemoryCollectionStore store = new InMemoryCollectionStore();
+	private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+	private final CollectionEventsService events = new CollectionEventsService(store) {
+		@Override
+		SseEmitter newEmitter() {
+			RecordingEmitter e = new RecordingEmitter();
+			emitters.add(e);
+			return e;
+		}
+	};
+
+	@AfterEach
+	void shutdown() {
+		events.shutdown();
+	}
+
+	// Records event names instead of writing to a response; send can be held
+	// to play a slow client, and disconnect() runs what the servlet would.
+	private static final class RecordingEmitter extends SseEmitter {
+		private static final Pattern NAME = Pattern.compile("^event:(\\S+)", Pattern.MULTILINE);
+
+		final List<String> names = new CopyOnWriteArrayList<>();
+		final AtomicInteger sends = new AtomicInteger(); // calls entered, held or not
+		volatile CountDownLatch gate = new CountDownLatch(0);
+		private volatile Runnable onDone = () -> {
+		};
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			sends.incrementAndGet();
+			try {
+				gate.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+			StringBuilder text = new StringBuilder();
+			builder.build().forEach(d -> text.append(d.getData()));
+			Matcher m = NAME.matcher(text);
+			if (m.find())
+				names.add(m.group(1));
+		}
+
+		@Override
+		public synchronized void onCompletion(Runnable callback) {
+			onDone = callback;
+		}
+
+		void disconnect() {
+			onDone.run();
+		}
+	}
+
+	private static void await(BooleanSupplier cond) throws InterruptedException {
+		for (int i = 0; i < 200 && !cond.getAsBoolean(); i++)
+			Thread.sleep(10);
+		assertTrue(cond.getAsBoolean());
+	}
+
+	private static ItemChange added(String cardId) {
+		return new ItemChange("added", new CollectionCardItem("x", cardId, cardId, null, null, null, null, null));
+	}
+
+	@Test
+	void storeErrorDuringSubscribeClosesTheHubWithoutBreakingTheMap() {
+		String cid = store.create("u1", "c").getId();
+		store.synchronousCallbacks = true; // the error lands while subscribe is still inside compute
+		store.listenError = new NoSuchElementException("Collection not found");
+
+		events.subscribe("u1", cid); // used to throw "Recursive update"
+		assertEquals(0, store.listeners.size());
+
+		// the failed hub is gone, so the next subscriber gets a fresh listener
+		store.listenError = null;
+		events.subscribe("u1", cid);
+		assertEquals(1, store.listeners.size());
+	}
+
+	@Test
+	void readyWaitsForTheListenerToGoLive() throws Exception {
+		String cid = store.create("u1", "c").getId();
+		store.holdReady = true;
+
+		events.subscribe("u1", cid);
+		events.subscribe("u1", cid);
+		store.publish("u1/" + cid, added("early")); // client will see it in the list it loads on ready
+		Thread.sleep(50);
+		assertEquals(List.of(), emitters.get(0).names);
+
+		store.ready();
+		store.ready(); // a second signal doesn't repeat ready
+		store.publish("u1/" + cid, added("late"));
+		for (RecordingEmitter e : emitters)
+			await(() -> e.names.equals(List.of("ready", "added")));
+
+		// a hub that is already live greets newcomers right away
+		events.subscribe("u1", cid);
+		await(() -> emitters.get(2).names.equals(List.of("ready")));
+	}
+
+	@Test
+	void oneListenerFansOutToEveryWatcher() throws Exception {
+		String cid = store.create("u1", "c").getId();
+		String other = store.create("u1", "d").getId();
+		events.subscribe("u1", cid);
+		events.subscribe("u1", cid);
+		events.subscribe("u1", other);
+		assertEquals(2, store.listeners.size()); // one per collection, not per connection
+		for (RecordingEmitter e : emitters)
+			await(() -> e.names.equals(List.of("ready")));
+
+		store.addItem("u1", cid, new CollectionCardItem(null, "base1-4", "Charizard", null, null, null, null, null));
+		await(() -> emitters.get(0).names.equals(List.of("ready", "added")));
+		await(() -> emitters.get(1).names.equals(List.of("ready", "added")));
+		Thread.sleep(50);
+		assertEquals(List.of("ready"), emitters.get(2).names);
+	}
+
+	@Test
+	void slowWatcherDropsItsBacklogForOneResync() throws Exception {
+		String cid = store.create("u1", "c").getId();
+		events.subscribe("u1", cid);
+		RecordingEmitter slow = emitters.get(0);
+		await(() -> slow.names.size() == 1);
+		slow.gate = new CountDownLatch(1); // ready was already sent; the next send blocks
+
+		store.publish("u1/" + cid, added("first"));
+		await(() -> slow.sends.get() == 2); // the sender is now stuck in send
+		int n = CollectionEventsService.BUFFER_SIZE * 2;
+		for (int i = 0; i < n; i++)
+			store.publish("u1/" + cid, added("c" + i));
+		slow.gate.countDown();
+
+		int expected = 3 + n - CollectionEventsService.BUFFER_SIZE - 1; // ready, first, resync, what came after
+		await(() -> slow.names.size() == expected);
+		List<String> got = slow.names;
+		assertEquals(List.of("ready", "added", "resync", "added"), got.subList(0, 4)); // nothing stale before resync
+		assertEquals(1, got.stream().filter("resync"::equals).count());
+	}
+
+	@Test
+	void lastWatcherLeavingRemovesTheListener() throws Exception {
+		String cid = store.create("u1", "c").getId();
+		events.subscribe("u1", cid);
+		events.subscribe("u1", cid);
+		assertEquals(1, store.listeners.size());
+
+		emitters.get(0).disconnect();
+		assertEquals(1, store.listeners.size());
+		emitters.get(1).disconnect();
+		assertEquals(0, store.listeners.size());
+
+		// the next watcher starts a fresh hub
+		events.subscribe("u1", cid);
+		assertEquals(1, store.listeners.size());
+		await(() -> emitters.get(2).names.equals(List.of("ready")));
+	}
+}
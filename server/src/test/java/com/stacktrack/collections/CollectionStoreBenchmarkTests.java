@@ -0,0 +1,204 @@
+package com.stacktrack.collections;
+
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+import com.stacktrack.catalog.CardPopularityService;
+import com.stacktrack.catalog.SeedCatalogService;
+import com.stacktrack.collections.CollectionStore.ItemBatch;
+import com.stacktrack.collections.CollectionStore.ItemChange;
+import com.stacktrack.collections.CollectionStore.Registration;
+import com.stacktrack.repo.CollectionCardRepository;
+import com.stacktrack.repo.CollectionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Same workload against both backends: create a collection, bulk-add items,
+ * list, stream, add/delete single items, delete the collection. The JPA store
+ * runs on embedded H2; Firestore only runs against the emulator
+ * (FIRESTORE_EMULATOR_HOST) and is skipped otherwise.
+ */
+@DataJpaTest(showSql = false)
+@ActiveProfiles("jpa")
+@Import(JpaCollectionStore.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // the store commits its own batches
+class CollectionStoreBenchmarkTests {
+
+	private static final int BULK_ITEMS = 5_000;
+	private static final int SINGLE_OPS = 50;
+
+	@Autowired
+	JpaCollectionStore jpa;
+	@Autowired
+	CollectionRepository collectionRepo;
+	@Autowired
+	CollectionCardRepository cardRepo;
+	@Autowired
+	PlatformTransactionManager txManager;
+
+	@Test
+	void jpaBackend() throws Exception {
+		run("jpa", jpa);
+	}
+
+	@Test
+	void firestoreBackend() throws Exception {
+		assumeTrue(System.getenv("FIRESTORE_EMULATOR_HOST") != null, "Firestore emulator not configured");
+		Firestore db = FirestoreOptions.newBuilder().setProjectId("demo-stacktrack").build().getService();
+		SeedCatalogService catalog = new SeedCatalogService();
+		CardPopularityService popularity = new CardPopularityService(db, catalog, Long.MAX_VALUE / 2, Long.MAX_VALUE / 2,
+				Optional.empty());
+		run("firestore", new CollectionsFsService(db, popularity));
+	}
+
+	@Test
+	void jpaKeysetPagesCoverEveryItemNewestFirst() throws Exception {
+		String cid = jpa.create("u-pages", "pages").getId();
+		int n = JpaCollectionStore.PAGE_SIZE * 2 + 7;
+		try (ItemBatch batch = jpa.openBatch("u-pages", cid)) {
+			for (int i = 0; i < n; i++)
+				batch.add(item("c-" + i));
+		}
+		List<CollectionCardItem> items = jpa.listItems("u-pages", cid);
+		assertEquals(n, items.size());
+		for (int i = 1; i < items.size(); i++) {
+			CollectionCardItem a = items.get(i - 1), b = items.get(i);
+			assertTrue(a.getAddedAt().compareTo(b.getAddedAt()) > 0
+					|| (a.getAddedAt().equals(b.getAddedAt()) && Long.parseLong(a.getId()) > Long.parseLong(b.getId())));
+		}
+		assertEquals(0, jpa.listItems("someone-else", cid).size());
+		assertEquals(n, jpa.cardCounts().keySet().stream().filter(k -> k.startsWith("c-")).count());
+	}
+
+	@Test
+	void jpaCancelledListItemsAsyncStopsReading() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CompletableFuture<Throwable> stopped = new CompletableFuture<>();
+		AtomicInteger delivered = new AtomicInteger();
+		// an endless collection: only a cancel that reaches the reader ends it
+		JpaCollectionStore store = new JpaCollectionStore(collectionRepo, cardRepo, txManager) {
+			@Override
+			public void streamItems(String uid, String collectionId, ItemSink sink) {
+				try {
+					while (true) {
+						sink.accept(item("c-" + delivered.incrementAndGet()));
+						started.countDown();
+						Thread.sleep(1);
+					}
+				} catch (Throwable t) {
+					stopped.complete(t);
+				}
+			}
+		};
+		try {
+			CompletableFuture<List<CollectionCardItem>> f = store.listItemsAsync("u1", "1");
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			f.cancel(true);
+
+			Throwable t = stopped.get(5, TimeUnit.SECONDS);
+			assertTrue(t instanceof CancellationException || t instanceof InterruptedException, t.toString());
+			int after = delivered.get();
+			Thread.sleep(50);
+			assertEquals(after, delivered.get());
+		} finally {
+			store.shutdown();
+		}
+	}
+
+	@Test
+	void jpaPublishesChangesToListeners() throws Exception {
+		String cid = jpa.create("u-live", "live").getId();
+		List<ItemChange> seen = new CopyOnWriteArrayList<>();
+		CompletableFuture<Void> ready = new CompletableFuture<>();
+		Registration reg = jpa.listenItems("u-live", cid, () -> ready.complete(null), seen::addAll, t -> {
+		});
+		ready.get(5, TimeUnit.SECONDS);
+		CollectionCardItem added = jpa.addItem("u-live", cid, item("base1-4"));
+		jpa.deleteItem("u-live", cid, added.getId());
+		reg.remove();
+		jpa.addItem("u-live", cid, item("base1-2"));
+
+		assertEquals(List.of("added", "removed"), seen.stream().map(ItemChange::type).toList());
+		assertEquals(added.getId(), seen.get(1).item().getId());
+	}
+
+	@Test
+	void jpaListenOnForeignCollectionFailsAsynchronously() throws Exception {
+		String cid = jpa.create("u-owner", "mine").getId();
+		CompletableFuture<Throwable> failed = new CompletableFuture<>();
+		Thread caller = Thread.currentThread();
+		jpa.listenItems("u-intruder", cid, () -> failed.complete(new AssertionError("ready")), changes -> {
+		}, t -> failed.complete(Thread.currentThread() == caller ? new AssertionError("called synchronously") : t));
+
+		assertTrue(failed.get(5, TimeUnit.SECONDS) instanceof NoSuchElementException);
+	}
+
+	private static void run(String label, CollectionStore store) throws Exception {
+		String uid = "bench-" + label;
+		long t0 = System.nanoTime();
+		String cid = store.create(uid, "bench").getId();
+		long created = System.nanoTime();
+
+		List<CompletableFuture<Void>> writes = new ArrayList<>(BULK_ITEMS);
+		try (ItemBatch batch = store.openBatch(uid, cid)) {
+			for (int i = 0; i < BULK_ITEMS; i++)
+				writes.add(batch.add(item("bench-" + (i % 500))));
+		}
+		CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).get();
+		long bulk = System.nanoTime();
+
+		assertEquals(BULK_ITEMS, store.listItems(uid, cid).size());
+		long listed = System.nanoTime();
+
+		AtomicInteger streamed = new AtomicInteger();
+		store.streamItems(uid, cid, it -> streamed.incrementAndGet());
+		assertEquals(BULK_ITEMS, streamed.get());
+		long stream = System.nanoTime();
+
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < SINGLE_OPS; i++)
+			ids.add(store.addItem(uid, cid, item("single-" + i)).getId());
+		long singles = System.nanoTime();
+		for (String id : ids)
+			store.deleteItem(uid, cid, id);
+		long deletes = System.nanoTime();
+
+		store.delete(uid, cid);
+		long dropped = System.nanoTime();
+
+		System.out.printf("[CollectionStoreBenchmark] %s: create %.1f ms, bulk add %d %.1f ms, list %.1f ms,"
+				+ " stream %.1f ms, add x%d %.2f ms/op, delete x%d %.2f ms/op, drop %.1f ms%n",
+				label, ms(created - t0), BULK_ITEMS, ms(bulk - created), ms(listed - bulk), ms(stream - listed),
+				SINGLE_OPS, ms(singles - stream) / SINGLE_OPS, SINGLE_OPS, ms(deletes - singles) / SINGLE_OPS,
+				ms(dropped - deletes));
+	}
+
+	private static CollectionCardItem item(String cardId) {
+		return new CollectionCardItem(null, cardId, "Card " + cardId, "Base", null, 1.5, null, null);
+	}
+
+	private static double ms(long nanos) {
+		return nanos / 1_000_000.0;
+	}
+}
@@ -0,0 +1,266 @@
+package com.stacktrack.collections;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.stacktrack.catalog.SeedCatalogService;
+import com.stacktrack.collections.CollectionTransferService.CsvRows;
+import com.stacktrack.collections.CollectionTransferService.Format;
+import com.stacktrack.collections.CollectionTransferService.ImportStatus;
+import com.stacktrack.collections.CollectionTransferService.NdjsonRows;
+import com.stacktrack.collections.CollectionTransferService.Row;
+import com.stacktrack.collections.CollectionTransferService.RowException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CollectionTransferServiceTests {
+
+	private final ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule());
+	private final InMemoryCollectionStore store = new InMemoryCollectionStore();
+	private CollectionTransferService transfer = service(store, 1 << 20, 2);
+
+	@AfterEach
+	void shutdown() {
+		transfer.shutdown();
+	}
+
+	private CollectionTransferService service(CollectionStore s, long maxBytes, int maxJobs) {
+		return new CollectionTransferService(s, new SeedCatalogService(), mapper, maxBytes, maxJobs);
+	}
+
+	private static BufferedReader reader(String s) {
+		return new BufferedReader(new StringReader(s));
+	}
+
+	// ------ row parsing ------
+
+	@Test
+	void csvHandlesQuotesEmbeddedNewlinesAndBom() throws Exception {
+		CsvRows rows = new CsvRows(reader("﻿CardId,Name,priceUSD\r\n"
+				+ "base1-4,\"Charizard, \"\"the\"\" dragon\",350.5\r\n"
+				+ "\r\n"
+				+ "base1-2,\"Blastoise\nline two\",\r\n"
+				+ "base1-15,Venusaur,12\r\n"));
+
+		Row a = rows.next();
+		assertEquals("base1-4", a.cardId());
+		assertEquals("Charizard, \"the\" dragon", a.name());
+		assertEquals(350.5, a.priceUSD());
+		assertEquals(2, a.line());
+
+		Row b = rows.next(); // the blank line is skipped
+		assertEquals("Blastoise\nline two", b.name());
+		assertNull(b.priceUSD());
+		assertEquals(4, b.line());
+
+		assertEquals(6, rows.next().line()); // line numbers count the embedded newline
+		assertNull(rows.next());
+	}
+
+	@Test
+	void csvReportsUnterminatedQuoteAtRecordStart() throws Exception {
+		CsvRows rows = new CsvRows(reader("cardId,name\nbase1-4,ok\nbase1-2,\"never closed\nstill open\n"));
+		assertEquals("base1-4", rows.next().cardId());
+		RowException e = assertThrows(RowException.class, rows::next);
+		assertEquals(3, e.row);
+		assertNull(rows.next());
+	}
+
+	@Test
+	void ndjsonSkipsBlankLinesAndReportsBadOnes() throws Exception {
+		NdjsonRows rows = new NdjsonRows(reader("{\"CardId\":\"base1-4\",\"priceUSD\":1.5,\"name\":null}\n"
+				+ "\n"
+				+ "{not json\n"
+				+ "[1,2]\n"
+				+ "{\"id\":\"base1-2\"}\n"), mapper);
+
+		Row a = rows.next();
+		assertEquals("base1-4", a.cardId());
+		assertEquals(1.5, a.priceUSD());
+		assertNull(a.name());
+		assertEquals(3, assertThrows(RowException.class, rows::next).row);
+		assertEquals(4, assertThrows(RowException.class, rows::next).row);
+		assertEquals("base1-2", rows.next().cardId()); // "id" works as an alias
+		assertNull(rows.next());
+	}
+
+	@Test
+	void toRowValidatesFields() throws Exception {
+		Map<String, String> f = new HashMap<>();
+		f.put("name", "  ");
+		assertEquals("Missing cardId", assertThrows(RowException.class, () -> CollectionTransferService.toRow(7, f))
+				.getMessage());
+
+		f.put("cardid", " base1-4 ");
+		f.put("priceusd", "abc");
+		assertThrows(RowException.class, () -> CollectionTransferService.toRow(7, f));
+
+		f.put("priceusd", "");
+		Row r = CollectionTransferService.toRow(7, f);
+		assertEquals("base1-4", r.cardId());
+		assertNull(r.name());
+		assertNull(r.priceUSD());
+	}
+
+	// ------ import runs ------
+
+	private ImportStatus awaitDone(String uid, ImportStatus st) throws Exception {
+		for (int i = 0; i < 200; i++) {
+			ImportStatus cur = transfer.importStatus(uid, st.jobId());
+			if (cur.state().equals("DONE") || cur.state().equals("FAILED"))
+				return cur;
+			Thread.sleep(25);
+		}
+		throw new AssertionError("import did not finish");
+	}
+
+	private ImportStatus importString(String uid, String cid, Format fmt, String body) throws Exception {
+		return awaitDone(uid, transfer.startImport(uid, cid, fmt,
+				new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))));
+	}
+
+	@Test
+	void importResolvesCatalogNamesAndReportsRowErrors() throws Exception {
+		String cid = store.create("u1", "c").getId();
+		ImportStatus st = importString("u1", cid, Format.CSV, "cardId,name,priceUSD\n"
+				+ "base1-4,,10\n" // name from the seed catalog
+				+ "unknown-1,,\n" // unknown and no name
+				+ "custom-9,My Card,x\n" // bad price
+				+ "custom-10,My Other Card,\n");
+
+		assertEquals("DONE", st.state());
+		assertEquals(4, st.rowsRead());
+		assertEquals(2, st.written());
+		assertEquals(2, st.failed());
+		assertEquals(List.of(3L, 4L), // parse errors are reported as they're read, ahead of resolve errors
+				st.errors().stream().map(CollectionTransferService.RowError::row).sorted().toList());
+
+		List<CollectionCardItem> items = store.listItems("u1", cid);
+		assertEquals(2, items.size());
+		CollectionCardItem charizard = items.stream().filter(i -> i.getCardId().equals("base1-4")).findFirst()
+				.orElseThrow();
+		assertEquals("Charizard", charizard.getName());
+		assertEquals("Base Set", charizard.getSetName());
+	}
+
+	@Test
+	void exportThenImportRoundTripsEveryField() throws Exception {
+		for (Format fmt : Format.values()) {
+			String src = store.create("u1", "src").getId();
+			store.addItem("u1", src, new CollectionCardItem(null, "base1-4", "Charizard, \"holo\"", "Base Set",
+					"https://img/4.png", 350.5, "2026/10/01", null));
+			store.addItem("u1", src, new CollectionCardItem(null, "custom-1", "Line\nbreak", null, null, null,
+					null, null));
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			transfer.export("u1", src, fmt, out);
+
+			String dst = store.create("u1", "dst").getId();
+			ImportStatus st = importString("u1", dst, fmt, out.toString(StandardCharsets.UTF_8));
+			assertEquals(2, st.written(), fmt + ": " + st.errors());
+
+			List<CollectionCardItem> a = store.listItems("u1", src);
+			List<CollectionCardItem> b = store.listItems("u1", dst);
+			for (int i = 0; i < a.size(); i++) {
+				// import preserves file order, which is newest first, so the copy is reversed
+				CollectionCardItem x = a.get(i), y = b.get(b.size() - 1 - i);
+				assertEquals(x.getCardId(), y.getCardId(), fmt.toString());
+				assertEquals(x.getName(), y.getName(), fmt.toString());
+				assertEquals(x.getSetName(), y.getSetName(), fmt.toString());
+				assertEquals(x.getImageSmall(), y.getImageSmall(), fmt.toString());
+				assertEquals(x.getPriceUSD(), y.getPriceUSD(), fmt.toString());
+				assertEquals(x.getPriceUpdatedAt(), y.getPriceUpdatedAt(), fmt.toString());
+			}
+		}
+	}
+
+	@Test
+	void csvExportKeepsSpreadsheetsFromRunningCells() throws Exception {
+		String src = store.create("u1", "src").getId();
+		store.addItem("u1", src, new CollectionCardItem(null, "base1-4", "=HYPERLINK(\"http://x\",\"y\")",
+				"+Set", "@img", null, "-1", null));
+		store.addItem("u1", src, new CollectionCardItem(null, "base1-2", "\tTabbed", "Plain - name", null, null,
+				null, null));
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		transfer.export("u1", src, Format.CSV, out);
+		String csv = out.toString(StandardCharsets.UTF_8);
+
+		assertTrue(csv.contains("base1-4,\"'=HYPERLINK(\"\"http://x\"\",\"\"y\"\")\",'+Set,'@img,,'-1,"), csv);
+		assertTrue(csv.contains("base1-2,'\tTabbed,Plain - name,"), csv); // only a leading trigger counts
+
+		// and the prefix comes off again on import
+		String dst = store.create("u1", "dst").getId();
+		assertEquals(2, importString("u1", dst, Format.CSV, csv).written());
+		CollectionCardItem back = store.listItems("u1", dst).stream()
+				.filter(i -> i.getCardId().equals("base1-4")).findFirst().orElseThrow();
+		assertEquals("=HYPERLINK(\"http://x\",\"y\")", back.getName());
+		assertEquals("+Set", back.getSetName());
+		assertEquals("@img", back.getImageSmall());
+		assertEquals("-1", back.getPriceUpdatedAt());
+	}
+
+	// ------ limits ------
+
+	@Test
+	void rejectsOversizedUploads() throws Exception {
+		transfer.shutdown();
+		transfer = service(store, 100, 2);
+		String cid = store.create("u1", "c").getId();
+		byte[] big = ("cardId\n" + "base1-4\n".repeat(50)).getBytes(StandardCharsets.UTF_8);
+
+		assertThrows(CollectionTransferService.UploadTooLargeException.class,
+				() -> transfer.startImport("u1", cid, Format.CSV, new ByteArrayInputStream(big)));
+		// the failed upload didn't use up the user's slot
+		ImportStatus st = importString("u1", cid, Format.CSV, "cardId\nbase1-4\n");
+		assertEquals(1, st.written());
+	}
+
+	@Test
+	void capsConcurrentImportsPerUser() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		InMemoryCollectionStore slow = new InMemoryCollectionStore() {
+			@Override
+			public ItemBatch openBatch(String uid, String collectionId) {
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException ignored) {
+				}
+				return super.openBatch(uid, collectionId);
+			}
+		};
+		transfer.shutdown();
+		transfer = service(slow, 1 << 20, 1);
+		String cid = slow.create("u1", "c").getId();
+
+		ImportStatus first = transfer.startImport("u1", cid, Format.CSV,
+				new ByteArrayInputStream("cardId\nbase1-4\n".getBytes(StandardCharsets.UTF_8)));
+		assertThrows(CollectionTransferService.TooManyImportsException.class, () -> transfer.startImport("u1", cid,
+				Format.CSV, new ByteArrayInputStream("cardId\nbase1-2\n".getBytes(StandardCharsets.UTF_8))));
+		// other users are not affected
+		String other = slow.create("u2", "c").getId();
+		ImportStatus second = transfer.startImport("u2", other, Format.CSV,
+				new ByteArrayInputStream("cardId\nbase1-2\n".getBytes(StandardCharsets.UTF_8)));
+
+		release.countDown();
+		assertEquals("DONE", awaitDone("u1", first).state());
+		assertEquals("DONE", awaitDone("u2", second).state());
+		assertTrue(transfer.startImport("u1", cid, Format.CSV,
+				new ByteArrayInputStream("cardId\nbase1-2\n".getBytes(StandardCharsets.UTF_8))) != null);
+	}
+}
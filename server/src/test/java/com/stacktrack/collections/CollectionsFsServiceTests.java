@@ -0,0 +1,150 @@
+package com.stacktrack.collections;
+
+import com.google.api.core.SettableApiFuture;
+import com.google.api.gax.rpc.ApiStreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** The streamItems hand-off, with a thread standing in for the gRPC stream. */
+class CollectionsFsServiceTests {
+
+	private final ExecutorService grpc = Executors.newSingleThreadExecutor(r -> new Thread(r, "fake-grpc"));
+	private final ExecutorService request = Executors.newSingleThreadExecutor(r -> new Thread(r, "fake-request"));
+	private final AtomicInteger delivered = new AtomicInteger(); // onNext calls that returned
+
+	@AfterEach
+	void shutdown() {
+		grpc.shutdownNow();
+		request.shutdownNow();
+	}
+
+	// delivers "c0".."c<n-1>" then ends with the given error, or completes
+	private Consumer<ApiStreamObserver<String>> stream(int n, Throwable error) {
+		return obs -> grpc.execute(() -> {
+			for (int i = 0; i < n; i++) {
+				obs.onNext("c" + i);
+				delivered.incrementAndGet();
+			}
+			if (error != null)
+				obs.onError(error);
+			else
+				obs.onCompleted();
+		});
+	}
+
+	private static CollectionCardItem item(String cardId) {
+		return new CollectionCardItem(cardId, cardId, null, null, null, null, null, null);
+	}
+
+	@Test
+	void deliversEveryDocumentInOrderOnTheCallingThread() throws Exception {
+		List<String> seen = new CopyOnWriteArrayList<>();
+		Thread caller = Thread.currentThread();
+		int n = CollectionsFsService.STREAM_BUFFER * 5;
+
+		CollectionsFsService.handOff(stream(n, null), CollectionsFsServiceTests::item, it -> {
+			assertSame(caller, Thread.currentThread());
+			seen.add(it.getCardId());
+		});
+
+		assertEquals(n, seen.size());
+		for (int i = 0; i < n; i++)
+			assertEquals("c" + i, seen.get(i));
+	}
+
+	@Test
+	void slowSinkHoldsTheStreamAtTheBufferSize() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		int n = CollectionsFsService.STREAM_BUFFER * 4;
+		Future<?> consumer = request.submit(() -> {
+			CollectionsFsService.handOff(stream(n, null), CollectionsFsServiceTests::item, it -> {
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+			});
+			return null;
+		});
+
+		Thread.sleep(200);
+		// one taken by the stuck sink, a full buffer, and one waiting in onNext
+		assertTrue(delivered.get() <= CollectionsFsService.STREAM_BUFFER + 1, "delivered " + delivered.get());
+		release.countDown();
+		consumer.get(5, TimeUnit.SECONDS);
+		assertEquals(n, delivered.get());
+	}
+
+	@Test
+	void sinkFailureIsRethrownAndReleasesTheStream() throws Exception {
+		int n = CollectionsFsService.STREAM_BUFFER * 4;
+		IOException broken = new IOException("client went away");
+		AtomicInteger accepted = new AtomicInteger();
+
+		IOException e = assertThrows(IOException.class, () -> CollectionsFsService.handOff(stream(n, null),
+				CollectionsFsServiceTests::item, it -> {
+					if (accepted.incrementAndGet() == 3)
+						throw broken;
+				}));
+
+		assertSame(broken, e);
+		grpc.shutdown();
+		assertTrue(grpc.awaitTermination(5, TimeUnit.SECONDS)); // the producer was not left blocked
+		assertEquals(n, delivered.get());
+		assertEquals(3, accepted.get());
+	}
+
+	@Test
+	void streamErrorIsRethrownAfterTheDocumentsBeforeIt() {
+		List<String> seen = new CopyOnWriteArrayList<>();
+		IllegalStateException failure = new IllegalStateException("DEADLINE_EXCEEDED");
+
+		IllegalStateException e = assertThrows(IllegalStateException.class, () -> CollectionsFsService
+				.handOff(stream(3, failure), CollectionsFsServiceTests::item, it -> seen.add(it.getCardId())));
+
+		assertSame(failure, e);
+		assertEquals(List.of("c0", "c1", "c2"), seen);
+	}
+
+	@Test
+	void cancellingTheConvertedFutureCancelsTheRpc() {
+		SettableApiFuture<String> rpc = SettableApiFuture.create();
+		AtomicInteger converted = new AtomicInteger();
+		CompletableFuture<Integer> out = CollectionsFsService.convert(rpc, s -> {
+			converted.incrementAndGet();
+			return s.length();
+		});
+
+		out.cancel(true);
+		assertTrue(rpc.isCancelled());
+		assertEquals(0, converted.get());
+	}
+
+	@Test
+	void convertedFutureCompletesWithTheRpc() throws Exception {
+		SettableApiFuture<String> rpc = SettableApiFuture.create();
+		CompletableFuture<Integer> out = CollectionsFsService.convert(rpc, String::length);
+
+		rpc.set("four");
+		assertEquals(4, out.get(1, TimeUnit.SECONDS));
+		assertFalse(rpc.isCancelled());
+	}
+}
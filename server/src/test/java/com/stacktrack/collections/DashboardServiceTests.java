@@ -0,0 +1,123 @@
+package com.stacktrack.collections;
+
+import com.stacktrack.collections.DashboardService.CollectionSection;
+import com.stacktrack.collections.DashboardService.Dashboard;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DashboardServiceTests {
+
+	private final InMemoryCollectionStore store = new InMemoryCollectionStore();
+	private final DashboardService dashboard = new DashboardService(store, 300);
+
+	private String collectionWith(String name, String... cardIds) throws Exception {
+		String cid = store.create("u1", name).getId();
+		for (String cardId : cardIds)
+			store.addItem("u1", cid, new CollectionCardItem(null, cardId, cardId, null, null, null, null, null));
+		return cid;
+	}
+
+	@Test
+	void loadsRequestedCollectionsInOrderAndReportsMissingOnes() throws Exception {
+		String a = collectionWith("a", "base1-4", "base1-2");
+		String b = collectionWith("b");
+
+		Dashboard d = dashboard.load("u1", List.of(b, "nope", a, b), true);
+
+		assertEquals(List.of(b, a), d.collections().stream().map(CollectionSection::id).toList());
+		assertEquals(List.of("nope"), d.missing());
+		assertEquals(List.of(), d.collections().get(0).items());
+		assertEquals(List.of("base1-2", "base1-4"),
+				d.collections().get(1).items().stream().map(CollectionCardItem::getCardId).toList());
+		assertTrue(d.errors().isEmpty());
+	}
+
+	@Test
+	void anotherUsersCollectionIsMissing() throws Exception {
+		String a = collectionWith("a", "base1-4");
+		Dashboard d = dashboard.load("u2", List.of(a), true);
+		assertEquals(List.of(), d.collections());
+		assertEquals(List.of(a), d.missing());
+	}
+
+	@Test
+	void oneFailedItemQueryLeavesTheOthersIntact() throws Exception {
+		String a = collectionWith("a", "base1-4");
+		String b = collectionWith("b", "base1-2");
+		store.asyncItems = cid -> cid.equals(a)
+				? CompletableFuture.failedFuture(new IllegalStateException("backend down"))
+				: CompletableFuture.completedFuture(store.listItems("u1", cid));
+
+		Dashboard d = dashboard.load("u1", List.of(a, b), true);
+
+		CollectionSection failed = d.collections().get(0), ok = d.collections().get(1);
+		assertNull(failed.items());
+		assertEquals("IllegalStateException: backend down", failed.itemsError());
+		assertEquals("a", failed.name()); // the collection itself still loaded
+		assertEquals(1, ok.items().size());
+		assertNull(ok.itemsError());
+	}
+
+	@Test
+	void slowItemQueryTimesOutWithoutHoldingUpTheRest() throws Exception {
+		String a = collectionWith("a", "base1-4");
+		String b = collectionWith("b", "base1-2");
+		CompletableFuture<List<CollectionCardItem>> never = new CompletableFuture<>();
+		store.asyncItems = cid -> cid.equals(a) ? never : CompletableFuture.completedFuture(store.listItems("u1", cid));
+
+		long t0 = System.nanoTime();
+		Dashboard d = dashboard.load("u1", List.of(a, b), true);
+		long tookMs = (System.nanoTime() - t0) / 1_000_000;
+
+		assertEquals("Timed out", d.collections().get(0).itemsError());
+		assertTrue(never.isCancelled()); // the store's own future: both stores pass the cancel on to the query
+		assertEquals(1, d.collections().get(1).items().size());
+		assertTrue(tookMs < 2_000, "took " + tookMs + " ms");
+	}
+
+	@Test
+	void collectionsFailureIsReportedInsteadOfThrown() {
+		InMemoryCollectionStore broken = new InMemoryCollectionStore() {
+			@Override
+			public List<CollectionItem> list(String uid) {
+				throw new IllegalStateException("quota exceeded");
+			}
+		};
+		Dashboard d = new DashboardService(broken, 300).load("u1", null, true);
+		assertEquals(List.of(), d.collections());
+		assertEquals("IllegalStateException: quota exceeded", d.errors().get("collections"));
+	}
+
+	@Test
+	void idsBeyondTheCapAreReported() throws Exception {
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < DashboardService.MAX_COLLECTIONS + 3; i++)
+			ids.add(collectionWith("c" + i));
+
+		Dashboard d = dashboard.load("u1", ids, false);
+
+		assertEquals(DashboardService.MAX_COLLECTIONS, d.collections().size());
+		String skipped = String.join(",", ids.subList(DashboardService.MAX_COLLECTIONS, ids.size()));
+		assertTrue(d.errors().get("collections").endsWith("skipped " + skipped), d.errors().toString());
+		assertTrue(d.collections().stream().allMatch(c -> c.items() == null && c.itemsError() == null));
+	}
+
+	@Test
+	void listingAllCollectionsCapsItemQueries() throws Exception {
+		IntStream.range(0, DashboardService.MAX_COLLECTIONS + 2).forEach(i -> store.create("u1", "c" + i));
+
+		Dashboard d = dashboard.load("u1", List.of(), true);
+
+		assertEquals(DashboardService.MAX_COLLECTIONS + 2, d.collections().size());
+		assertTrue(d.errors().containsKey("items"));
+		assertNull(d.collections().get(DashboardService.MAX_COLLECTIONS).items());
+	}
+}
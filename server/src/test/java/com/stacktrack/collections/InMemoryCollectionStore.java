@@ -0,0 +1,178 @@
+package com.stacktrack.collections;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Map-backed {@link CollectionStore} for unit tests. Change callbacks run
+ * synchronously on the writer's thread; onReady and onError from listenItems
+ * come from another thread, as the contract asks. Tests can make listenItems
+ * fail, hold readiness back until {@link #ready()}, opt into delivering
+ * onReady/onError before listenItems returns (breaking the contract, the
+ * nastiest case for callers), or override listItemsAsync.
+ */
+public class InMemoryCollectionStore implements CollectionStore {
+
+	record Listener(String key, Runnable onReady, Consumer<List<ItemChange>> onChanges,
+			Consumer<Throwable> onError) {
+	}
+
+	private final AtomicLong ids = new AtomicLong();
+	private final Map<String, CollectionItem> collections = new ConcurrentHashMap<>(); // uid/cid -> collection
+	private final Map<String, List<CollectionCardItem>> items = new ConcurrentHashMap<>(); // uid/cid -> newest first
+	final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+	volatile Throwable listenError; // delivered to onError instead of registering
+	volatile boolean holdReady; // else onReady follows right after listenItems
+	volatile boolean synchronousCallbacks; // onReady/onError from inside listenItems
+	volatile java.util.function.Function<String, CompletableFuture<List<CollectionCardItem>>> asyncItems;
+
+	private static String key(String uid, String collectionId) {
+		return uid + "/" + collectionId;
+	}
+
+	@Override
+	public List<CollectionItem> list(String uid) {
+		List<CollectionItem> out = new ArrayList<>();
+		collections.forEach((k, c) -> {
+			if (k.startsWith(uid + "/"))
+				out.add(c);
+		});
+		out.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
+		return out;
+	}
+
+	@Override
+	public List<CollectionItem> getCollections(String uid, List<String> ids) {
+		List<CollectionItem> out = new ArrayList<>();
+		for (String id : ids) {
+			CollectionItem c = collections.get(key(uid, id));
+			if (c != null)
+				out.add(c);
+		}
+		return out;
+	}
+
+	@Override
+	public CollectionItem create(String uid, String name) {
+		String id = "c" + ids.incrementAndGet();
+		CollectionItem c = new CollectionItem(id, name, Instant.now().plusNanos(ids.get()));
+		collections.put(key(uid, id), c);
+		items.put(key(uid, id), new CopyOnWriteArrayList<>());
+		return c;
+	}
+
+	@Override
+	public void delete(String uid, String id) {
+		collections.remove(key(uid, id));
+		items.remove(key(uid, id));
+	}
+
+	@Override
+	public CollectionCardItem addItem(String uid, String collectionId, CollectionCardItem item) {
+		List<CollectionCardItem> list = items.get(key(uid, collectionId));
+		if (list == null)
+			throw new NoSuchElementException("Collection not found: " + collectionId);
+		CollectionCardItem saved = new CollectionCardItem("i" + ids.incrementAndGet(), item.getCardId(),
+				item.getName(), item.getSetName(), item.getImageSmall(), item.getPriceUSD(),
+				item.getPriceUpdatedAt(), Instant.now());
+		list.add(0, saved);
+		publish(key(uid, collectionId), new ItemChange("added", saved));
+		return saved;
+	}
+
+	@Override
+	public ItemBatch openBatch(String uid, String collectionId) {
+		return new ItemBatch() {
+			@Override
+			public CompletableFuture<Void> add(CollectionCardItem item) {
+				try {
+					addItem(uid, collectionId, item);
+					return CompletableFuture.completedFuture(null);
+				} catch (RuntimeException e) {
+					return CompletableFuture.failedFuture(e);
+				}
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+	}
+
+	@Override
+	public List<CollectionCardItem> listItems(String uid, String collectionId) {
+		List<CollectionCardItem> list = items.get(key(uid, collectionId));
+		return list == null ? List.of() : List.copyOf(list);
+	}
+
+	@Override
+	public CompletableFuture<List<CollectionCardItem>> listItemsAsync(String uid, String collectionId) {
+		var override = asyncItems;
+		if (override != null)
+			return override.apply(collectionId);
+		return CompletableFuture.completedFuture(listItems(uid, collectionId));
+	}
+
+	@Override
+	public void streamItems(String uid, String collectionId, ItemSink sink) throws Exception {
+		for (CollectionCardItem it : listItems(uid, collectionId))
+			sink.accept(it);
+	}
+
+	@Override
+	public void deleteItem(String uid, String collectionId, String itemId) {
+		List<CollectionCardItem> list = items.get(key(uid, collectionId));
+		if (list == null)
+			return;
+		for (CollectionCardItem it : list) {
+			if (it.getId().equals(itemId) && list.remove(it)) {
+				publish(key(uid, collectionId), new ItemChange("removed", it));
+				return;
+			}
+		}
+	}
+
+	@Override
+	public Registration listenItems(String uid, String collectionId, Runnable onReady,
+			Consumer<List<ItemChange>> onChanges, Consumer<Throwable> onError) {
+		Throwable err = listenError;
+		if (err != null) {
+			callback(() -> onError.accept(err));
+			return () -> {
+			};
+		}
+		Listener l = new Listener(key(uid, collectionId), onReady, onChanges, onError);
+		listeners.add(l);
+		if (!holdReady)
+			callback(onReady);
+		return () -> listeners.remove(l);
+	}
+
+	private void callback(Runnable r) {
+		if (synchronousCallbacks)
+			r.run();
+		else
+			CompletableFuture.runAsync(r);
+	}
+
+	// releases readiness held back by holdReady, like a first snapshot arriving
+	void ready() {
+		listeners.forEach(l -> l.onReady().run());
+	}
+
+	void publish(String key, ItemChange change) {
+		for (Listener l : listeners) {
+			if (l.key().equals(key))
+				l.onChanges().accept(List.of(change));
+		}
+	}
+}
@@ -0,0 +1,184 @@
+package com.stacktrack.images;
+
+import com.stacktrack.catalog.SeedCatalogService;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ImageCacheServiceTests {
+
+	@TempDir
+	Path dir;
+
+	private HttpServer origin;
+	private final AtomicInteger hits = new AtomicInteger();
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	// local stand-in for images.pokemontcg.io: /<set>/<number>.png -> 1000 bytes
+	@BeforeEach
+	void startOrigin() throws Exception {
+		origin = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		origin.setExecutor(Executors.newCachedThreadPool());
+		origin.createContext("/", ex -> {
+			hits.incrementAndGet();
+			if (ex.getRequestURI().getPath().startsWith("/slow/")) {
+				try {
+					release.await();
+				} catch (InterruptedException ignored) {
+				}
+			}
+			if (ex.getRequestURI().getPath().contains("missing")) {
+				ex.sendResponseHeaders(404, -1);
+				ex.close();
+				return;
+			}
+			byte[] body = bytesFor(ex.getRequestURI().getPath());
+			ex.getResponseHeaders().add("Content-Type", "image/png");
+			ex.sendResponseHeaders(200, body.length);
+			ex.getResponseBody().write(body);
+			ex.close();
+		});
+		origin.start();
+	}
+
+	@AfterEach
+	void stopOrigin() {
+		origin.stop(0);
+	}
+
+	private ImageCacheService service(long maxBytes) throws Exception {
+		return service(maxBytes, 0);
+	}
+
+	// the made-up ids below ("set-1", "slow-1", ...) aren't seed cards, so admit them
+	private ImageCacheService service(long maxBytes, long deleteGraceMs) throws Exception {
+		ImageCacheService svc = new ImageCacheService(dir.toString(), maxBytes,
+				"http://127.0.0.1:" + origin.getAddress().getPort(), deleteGraceMs, new SeedCatalogService());
+		svc.admit(List.of("set-1", "set-2", "set-3", "slow-1", "missing-1"));
+		return svc;
+	}
+
+	private static byte[] bytesFor(String path) {
+		byte[] b = new byte[1000];
+		for (int i = 0; i < b.length; i++)
+			b[i] = (byte) (path.hashCode() + i);
+		return b;
+	}
+
+	@Test
+	void cachesOnDiskAndServesFromCache() throws Exception {
+		ImageCacheService svc = service(1 << 20);
+
+		var img = svc.get("base1-4");
+		assertArrayEquals(bytesFor("/base1/4.png"), Files.readAllBytes(img.path()));
+		assertEquals(1000, img.size());
+		String etag = img.etag();
+
+		assertEquals(etag, svc.get("base1-4").etag());
+		assertEquals(1, hits.get());
+
+		// a fresh instance picks up the files already on disk
+		assertEquals(etag, service(1 << 20).get("base1-4").etag());
+		assertEquals(1, hits.get());
+	}
+
+	@Test
+	void coalescesConcurrentMisses() throws Exception {
+		ImageCacheService svc = service(1 << 20);
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		List<Future<ImageCacheService.CachedImage>> results = new ArrayList<>();
+		for (int i = 0; i < 8; i++)
+			results.add(pool.submit(() -> svc.get("slow-1")));
+		Thread.sleep(200); // let every caller miss while the origin is blocked
+		release.countDown();
+		for (var f : results)
+			assertEquals(1000, f.get().size());
+		pool.shutdown();
+		assertEquals(1, hits.get());
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedOverCap() throws Exception {
+		ImageCacheService svc = service(2500); // room for two 1000-byte images
+		Path a = svc.get("set-1").path();
+		Path b = svc.get("set-2").path();
+		svc.get("set-1"); // touch: set-2 is now the eldest
+		svc.get("set-3");
+
+		assertTrue(Files.exists(a));
+		assertFalse(Files.exists(b));
+		assertEquals(3, hits.get());
+	}
+
+	@Test
+	void rejectsUnknownAndInvalidIds() throws Exception {
+		ImageCacheService svc = service(1 << 20);
+		assertThrows(ImageCacheService.NotFoundException.class, () -> svc.get("missing-1"));
+		assertThrows(ImageCacheService.NotFoundException.class, () -> svc.get("../etc-passwd"));
+	}
+
+	@Test
+	void remembersOrigin404s() throws Exception {
+		ImageCacheService svc = service(1 << 20);
+		assertThrows(ImageCacheService.NotFoundException.class, () -> svc.get("missing-1"));
+		assertThrows(ImageCacheService.NotFoundException.class, () -> svc.get("missing-1"));
+		assertEquals(0, svc.prefetch(List.of("missing-1")));
+		assertEquals(1, hits.get());
+	}
+
+	@Test
+	void onlyFetchesKnownCards() throws Exception {
+		ImageCacheService svc = service(1 << 20);
+		assertThrows(ImageCacheService.NotFoundException.class, () -> svc.get("made-up-1"));
+		assertEquals(0, hits.get());
+
+		svc.admit(List.of("made-up-1")); // e.g. listed in a signed-in user's collection
+		assertEquals(1000, svc.get("made-up-1").size());
+		assertEquals(1, hits.get());
+	}
+
+	@Test
+	void keepsEvictedFilesThroughTheGracePeriod() throws Exception {
+		ImageCacheService svc = service(1500, 60_000); // room for one image
+		Path a = svc.get("set-1").path();
+		svc.get("set-2"); // evicts set-1, but a response may still be reading it
+
+		assertTrue(Files.exists(a));
+		assertEquals(2, hits.get());
+	}
+
+	@Test
+	void refetchedFileSurvivesItsOwnPendingEviction() throws Exception {
+		ImageCacheService svc = service(2500, 200); // room for two images
+		svc.admit(List.of("set-4"));
+		Path a = svc.get("set-1").path();
+		Path b = svc.get("set-2").path();
+		svc.get("set-3"); // evicts set-1: delete pending
+		assertEquals(a, svc.get("set-1").path()); // back again, evicting set-2
+
+		Thread.sleep(300);
+		svc.get("set-4"); // evicts set-3 and sweeps both pending deletes
+		assertTrue(Files.exists(a));
+		assertFalse(Files.exists(b));
+		assertEquals(5, hits.get());
+	}
+}
@@ -0,0 +1,108 @@
+package com.stacktrack.users;
+
+import com.stacktrack.users.UserProfileService.Profile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UserProfileServiceTests {
+
+	private static final Profile ASH = new Profile("ash@example.com", "Ash");
+	private static final Profile ASH_RENAMED = new Profile("ash@example.com", "Ash K.");
+
+	private final List<Map<String, Profile>> batches = new CopyOnWriteArrayList<>();
+	private volatile int failuresLeft;
+	private volatile Runnable duringWrite = () -> {
+	};
+
+	// the background tick never fires during a test; flushes are driven by hand
+	private final UserProfileService profiles = new UserProfileService(3_600_000, 3_600_000) {
+		@Override
+		void write(List<Map.Entry<String, Profile>> chunk) throws Exception {
+			duringWrite.run();
+			if (failuresLeft > 0) {
+				failuresLeft--;
+				throw new Exception("unavailable");
+			}
+			batches.add(Map.ofEntries(chunk.toArray(Map.Entry[]::new)));
+		}
+	};
+
+	@AfterEach
+	void shutdown() {
+		batches.clear();
+		profiles.shutdown();
+	}
+
+	@Test
+	void repeatedLoginsCoalesceIntoOneWrite() {
+		for (int i = 0; i < 5; i++) {
+			profiles.ensureProfile("u1", ASH);
+			profiles.ensureProfile("u2", ASH_RENAMED);
+		}
+		profiles.flush(false);
+		assertEquals(List.of(Map.of("u1", ASH, "u2", ASH_RENAMED)), batches);
+
+		profiles.ensureProfile("u1", ASH); // unchanged: nothing queued
+		profiles.flush(true);
+		assertEquals(1, batches.size());
+	}
+
+	@Test
+	void changesWithinTheIntervalWaitAndKeepOnlyTheLatest() {
+		profiles.ensureProfile("u1", ASH);
+		profiles.flush(false);
+
+		profiles.ensureProfile("u1", ASH_RENAMED);
+		profiles.ensureProfile("u1", new Profile("ash@example.com", "Ashura"));
+		profiles.flush(false); // u1 was written this interval
+		assertEquals(1, batches.size());
+
+		profiles.flush(true);
+		assertEquals(Map.of("u1", new Profile("ash@example.com", "Ashura")), batches.get(1));
+	}
+
+	@Test
+	void changeBackBeforeTheFlushWritesNothing() {
+		profiles.ensureProfile("u1", ASH);
+		profiles.flush(false);
+		profiles.ensureProfile("u1", ASH_RENAMED);
+		profiles.ensureProfile("u1", ASH);
+		profiles.flush(true);
+		assertEquals(1, batches.size());
+	}
+
+	@Test
+	void failedWritesAreRetriedOnTheNextFlush() {
+		failuresLeft = 1;
+		profiles.ensureProfile("u1", ASH);
+		profiles.flush(false);
+		assertEquals(0, batches.size());
+
+		profiles.flush(false);
+		assertEquals(List.of(Map.of("u1", ASH)), batches);
+	}
+
+	@Test
+	void changeBackWhileTheWriteIsInFlightIsNotLost() {
+		profiles.ensureProfile("u1", ASH);
+		profiles.flush(false);
+		profiles.ensureProfile("u1", ASH_RENAMED);
+
+		// the rename is being committed when the user changes back
+		duringWrite = () -> profiles.ensureProfile("u1", ASH);
+		profiles.flush(true);
+		duringWrite = () -> {
+		};
+		assertEquals(Map.of("u1", ASH_RENAMED), batches.get(1));
+
+		profiles.flush(true);
+		assertEquals(3, batches.size());
+		assertEquals(Map.of("u1", ASH), batches.get(2)); // Firestore ends on what the user has now
+	}
+}
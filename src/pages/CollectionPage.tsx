@@ -7,6 +7,28 @@ const API = (
   import.meta.env.VITE_API_BASE_URL || "http://localhost:8080"
 ).replace(/\/+$/, "");
 
+// card images go through our caching proxy instead of images.pokemontcg.io
+const imageUrl = (cardId: string) => `${API}/api/images/${encodeURIComponent(cardId)}`;
+
+// the proxy only serves images.pokemontcg.io cards; anything else (custom ids
+// from an import) keeps its own imageSmall
+const POKEMONTCG_IMAGES = "https://images.pokemontcg.io/";
+const cardImage = (cardId: string | null, imageSmall: string | null) =>
+  cardId && (!imageSmall || imageSmall.startsWith(POKEMONTCG_IMAGES))
+    ? imageUrl(cardId)
+    : imageSmall || "";
+
+// proxy miss (a card it doesn't know yet): try the stored URL once, then hide
+const imageFallback =
+  (imageSmall: string | null) => (e: React.SyntheticEvent<HTMLImageElement>) => {
+    const img = e.currentTarget;
+    if (imageSmall && img.src !== imageSmall) {
+      img.src = imageSmall;
+      return;
+    }
+    img.style.visibility = "hidden";
+  };
+
 type SearchItem = {
   id: string;
   name: string;
@@ -52,6 +74,14 @@ export default function CollectionPage() {
     const [items, setItems] = React.useState<SavedItem[]>([]);
     const [itemsLoading, setItemsLoading] = React.useState(true);
     const [itemsErr, setItemsErr] = React.useState<string | null>(null);
+    const [collectionName, setCollectionName] = React.useState<string | null>(null);
+
+    // GET /api/dashboard: the collection doc and its items in one round trip
+    type Dashboard = {
+        collections: { id: string; name: string; items: SavedItem[] | null; itemsError: string | null }[];
+        missing: string[];
+        errors: Record<string, string>;
+    };
 
   // Helper to build auth headers
   const authHeaders = React.useCallback(async (): Promise<HeadersInit> => {
@@ -61,38 +91,78 @@ export default function CollectionPage() {
     return h;
   }, [getIdToken]);
 
-  // (Optional) load collection data here if you want to show name/items later
-  React.useEffect(() => {
-    let ignore = false;
-    (async () => {
-      if (!id || ignore) return;
-      // TODO: fetch collection details/items if needed
-    })();
-    return () => {
-      ignore = true;
-    };
-  }, [id]);
+  const loadItems = React.useCallback(async (isAborted: () => boolean) => {
+    if (!id) return;
+    setItemsLoading(true);
+    setItemsErr(null);
+    try {
+      const url = `${API}/api/dashboard?collections=${encodeURIComponent(id)}&includeItems=true`;
+      const r = await fetch(url, { headers: await authHeaders() });
+      if (!r.ok) throw new Error(`${r.status} ${r.statusText}`);
+      const data = (await r.json()) as Dashboard;
+      const col = data.collections?.[0];
+      if (!col) throw new Error(data.errors?.collections || "Collection not found");
+      if (col.itemsError || !col.items) throw new Error(col.itemsError || "Items unavailable");
+      if (!isAborted()) {
+        setCollectionName(col.name);
+        setItems(col.items);
+      }
+    } catch (e: any) {
+      if (!isAborted()) setItemsErr(e.message || String(e));
+    } finally {
+      if (!isAborted()) setItemsLoading(false);
+    }
+  }, [id, API, authHeaders]);
 
+  // Load the list once, then follow server-sent changes (also from other devices).
+  // "ready"/"resync" mean (re)load the full list; the rest are incremental.
   React.useEffect(() => {
+    if (!id) return;
     let aborted = false;
-    (async () => {
-      if (!id) return;
-      setItemsLoading(true);
-      setItemsErr(null);
-      try {
-        const url = `${API}/api/collections/${encodeURIComponent(id)}/items`;
-        const r = await fetch(url, { headers: await authHeaders() });
-        if (!r.ok) throw new Error(`${r.status} ${r.statusText}`);
-        const data = (await r.json()) as SavedItem[];
-        if (!aborted) setItems(Array.isArray(data) ? data : []);
-      } catch (e: any) {
-        if (!aborted) setItemsErr(e.message || String(e));
-      } finally {
-        if (!aborted) setItemsLoading(false);
-      }
-    })();
-    return () => { aborted = true; };
-  }, [id, API, authHeaders]);
+    let es: EventSource | null = null;
+    let retry: ReturnType<typeof setTimeout> | null = null;
+    let loadedOnce = false;
+    const isAborted = () => aborted;
+
+    const reload = () => { loadedOnce = true; void loadItems(isAborted); };
+
+    const connect = async () => {
+      const t = await getIdToken();
+      if (aborted) return;
+      if (typeof EventSource === "undefined" || !t) { reload(); return; }
+
+      const url = `${API}/api/collections/${encodeURIComponent(id)}/events?token=${encodeURIComponent(t)}`;
+      es = new EventSource(url);
+      es.addEventListener("ready", reload);
+      es.addEventListener("resync", reload);
+      es.addEventListener("added", (ev) => {
+        const { item } = JSON.parse((ev as MessageEvent).data) as { item: SavedItem };
+        setItems((prev) => (prev.some((it) => it.id === item.id) ? prev : [item, ...prev]));
+      });
+      es.addEventListener("modified", (ev) => {
+        const { item } = JSON.parse((ev as MessageEvent).data) as { item: SavedItem };
+        setItems((prev) => prev.map((it) => (it.id === item.id ? item : it)));
+      });
+      es.addEventListener("removed", (ev) => {
+        const { item } = JSON.parse((ev as MessageEvent).data) as { item: SavedItem };
+        setItems((prev) => prev.filter((it) => it.id !== item.id));
+      });
+      es.onerror = () => {
+        // token may have expired; reconnect with a fresh one instead of the built-in retry
+        es?.close();
+        es = null;
+        if (!loadedOnce) reload();
+        if (!aborted) retry = setTimeout(() => void connect(), 5000);
+      };
+    };
+
+    void connect();
+    return () => {
+      aborted = true;
+      es?.close();
+      if (retry) clearTimeout(retry);
+    };
+  }, [id, API, getIdToken, loadItems]);
 
   // Debounced search effect
   React.useEffect(() => {
@@ -109,11 +179,12 @@ export default function CollectionPage() {
       try {
         setSearching(true);
         setSearchErr(null);
-        const url = `${API}/api/search/catalog?q=${encodeURIComponent(q)}&limit=10`;
+        // federated: local catalog plus upstream prices, within the server's latency budget
+        const url = `${API}/api/search/catalog?q=${encodeURIComponent(q)}&limit=10&federated=true`;
         const r = await fetch(url, { headers: await authHeaders() });
         if (!r.ok) throw new Error(`${r.status} ${r.statusText}`);
-        const data = (await r.json()) as SearchItem[];
-        if (!aborted) setResults(Array.isArray(data) ? data : []);
+        const data = (await r.json()) as { items: SearchItem[] };
+        if (!aborted) setResults(Array.isArray(data?.items) ? data.items : []);
       } catch (e: any) {
         if (!aborted) {
           setSearchErr(e?.message || String(e));
@@ -185,7 +256,7 @@ export default function CollectionPage() {
         throw new Error(text || `${r.status} ${r.statusText}`);
       }
       const saved = (await r.json()) as SavedItem;  
-    setItems((prev) => [saved, ...prev]);          
+      setItems((prev) => (prev.some((it) => it.id === saved.id) ? prev : [saved, ...prev])); // SSE may have beaten us
       setAddedId(item.id);
     } catch (e: any) {
       setErr(e.message || String(e));
@@ -218,7 +289,7 @@ export default function CollectionPage() {
           <Link to="/collections" className="btn">
             ← Back
           </Link>
-          <h2 style={{ marginLeft: 12 }}>Collection</h2>
+          <h2 style={{ marginLeft: 12 }}>{collectionName ?? "Collection"}</h2>
         </div>
         <div className="row" style={{ gap: 10 }}>
           <button
@@ -288,7 +359,8 @@ export default function CollectionPage() {
                     }}
                   >
                     <img
-                      src={r.imageSmall}
+                      src={cardImage(r.id, r.imageSmall)}
+                      onError={imageFallback(r.imageSmall)}
                       alt=""
                       width={48}
                       height={68}
@@ -346,12 +418,12 @@ export default function CollectionPage() {
             className="tile"
             style={{ display: "flex", gap: 12, alignItems: "center", padding: 8, marginBottom: 6 }}>
           <img
-            src={it.imageSmall || ""}
+            src={cardImage(it.cardId, it.imageSmall)}
             alt=""
             width={48}
             height={68}
             style={{ borderRadius: 8, objectFit: "cover", background: "#111" }}
-            onError={(e) => { (e.currentTarget as HTMLImageElement).style.visibility = "hidden"; }}
+            onError={imageFallback(it.imageSmall)}
           />
           <div style={{ flex: 1, minWidth: 0 }}>
             <div style={{ fontWeight: 700 }}>{it.name ?? "(Unnamed card)"}</div>
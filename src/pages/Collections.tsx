@@ -43,7 +43,8 @@ export default function Collections() {
     h.set("Content-Type","application/json");
     const r = await fetch(`${API}/api/collections`, { method:"POST", headers: h, body: JSON.stringify({ name: trimmed })});
     if (!r.ok) { setErr(await r.text()); return; }
-    setName(""); await load();
+    const created = (await r.json()) as Collection;
+    setName(""); setItems(prev => [created, ...prev]);
   };
 
   return (